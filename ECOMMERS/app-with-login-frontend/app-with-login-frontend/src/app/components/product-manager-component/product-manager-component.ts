@@ -5,6 +5,7 @@ import { AuthService } from '../../service/auth-service';
 import { Router, RouterLink, RouterModule } from '@angular/router';
 import { CommonModule } from '@angular/common';
 import { FormsModule } from '@angular/forms';
+import { filter, switchMap, take } from 'rxjs/operators';
 
 @Component({
   selector: 'app-product-manager-component',
@@ -30,10 +31,14 @@ export class ProductManagerComponent {
 
   private loadMyProducts() {
     this.loading = true;
-    this.productSvc.list(0, 1000).subscribe({
+    // userInfo puede llegar después de entrar en la pantalla (recarga de página)
+    this.auth.userInfo$.pipe(
+      filter(info => !!info),
+      take(1),
+      switchMap(info => this.productSvc.listBySeller(info!.id, 0, 1000))
+    ).subscribe({
       next: resp => {
-        const me = this.auth.getUserId();
-        this.products = resp.content.filter(p => p.sellerId === me);
+        this.products = resp.content;
         this.loading = false;
       },
       error: () => {
@@ -0,0 +1,6 @@
+/** Operación de POST /api/cart/{userId}/ops (se aplican todas o ninguna) */
+export type CartOperation =
+  | { op: 'add'; productId: number; quantity: number }
+  | { op: 'set'; itemId?: number; productId?: number; quantity: number }
+  | { op: 'remove'; itemId?: number; productId?: number }
+  | { op: 'clear' };
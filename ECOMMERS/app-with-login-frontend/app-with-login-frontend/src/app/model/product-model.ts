@@ -7,6 +7,10 @@ export interface ProductModel {
   categoryId: number;
   sellerId: number;
   imageUrl?: string;
+  // Variantes redimensionadas (null hasta que se generan)
+  thumbnailUrl?: string;
+  cardUrl?: string;
+  detailUrl?: string;
   createdAt: string;
 
   // Enriquecidos por Products MS:
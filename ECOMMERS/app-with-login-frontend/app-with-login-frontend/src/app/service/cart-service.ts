@@ -1,9 +1,10 @@
 import { Injectable } from '@angular/core';
 import { HttpClient, HttpParams } from '@angular/common/http';
-import { BehaviorSubject, Observable, forkJoin, of } from 'rxjs';
+import { BehaviorSubject, Observable, of } from 'rxjs';
 import { filter, finalize, switchMap, take, tap } from 'rxjs/operators';
 import { CartItem } from '../model/cart-item';
 import { Cart } from '../model/cart';
+import { CartOperation } from '../model/cart-operation';
 import { AuthService } from './auth-service';
 
 @Injectable({ providedIn: 'root' })
@@ -156,19 +157,23 @@ export class CartService {
     }
   }
 
-  /** Sincroniza carrito invitado al loguearse */
+  /** Varias operaciones en una sola petición (solo remoto): todas o ninguna */
+  applyOperations(operations: CartOperation[]): Observable<Cart> {
+    const userId = this.auth.getUserId()!;
+    return this.http.post<Cart>(`${this.apiUrl}/${userId}/ops`, operations).pipe(
+      tap(cart => {
+        const total = cart.items.reduce((acc, i) => acc + i.quantity, 0);
+        this.count$.next(total);
+      })
+    );
+  }
+
+  /** Sincroniza carrito invitado al loguearse (una sola petición) */
   private syncGuestToRemote(): Observable<any> {
     const guestItems: CartItem[] = JSON.parse(localStorage.getItem('localCart_guest') || '[]');
     if (!guestItems.length) return of(void 0);
 
-    const userId = this.auth.getUserId()!;
-    const calls = guestItems.map(i => {
-      const params = new HttpParams()
-        .set('userId', userId)
-        .set('productId', i.productId)
-        .set('quantity', i.quantity);
-      return this.http.post<Cart>(`${this.apiUrl}/add`, null, { params });
-    });
-    return forkJoin(calls).pipe(tap(() => localStorage.removeItem('localCart_guest')));
+    const ops: CartOperation[] = guestItems.map(i => ({ op: 'add', productId: i.productId, quantity: i.quantity }));
+    return this.applyOperations(ops).pipe(tap(() => localStorage.removeItem('localCart_guest')));
   }
 }
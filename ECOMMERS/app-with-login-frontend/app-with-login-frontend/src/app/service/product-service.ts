@@ -58,6 +58,12 @@ export class ProductService {
     return this.http.get<PageResponse<ProductModel>>(`${this.baseUrl}/by-category`, { params });
   }
 
+  /** Productos de un vendedor ("mis productos"), del más reciente al más antiguo */
+  listBySeller(sellerId: number, page: number, size: number): Observable<PageResponse<ProductModel>> {
+    const params = new HttpParams().set('sellerId', sellerId).set('page', page).set('size', size);
+    return this.http.get<PageResponse<ProductModel>>(`${this.baseUrl}/by-seller`, { params });
+  }
+
   getProductById(id: number): Observable<ProductModel> {
     return this.http.get<ProductModel>(`${this.baseUrl}/${id}`);
   }
@@ -1,12 +1,15 @@
 // src/main/java/backend/microservicio/carts/controller/CartController.java
 package backend.microservicio.carts.controller;
 
+import backend.microservicio.carts.dto.CartOperation;
 import backend.microservicio.carts.model.Cart;
 import backend.microservicio.carts.service.CartService;
 import jakarta.persistence.EntityNotFoundException;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.List;
+
 @RestController
 @RequestMapping("/api/cart")
 @CrossOrigin(origins = "http://localhost:4200")
@@ -67,6 +70,18 @@ public class CartController {
         return ResponseEntity.ok(cartService.updateItemQuantity(userId, itemId, quantity));
     }
 
+    /**
+     * Varias operaciones en orden (add / set / remove / clear), aplicadas de
+     * una vez: o todas o ninguna. Devuelve el carrito resultante.
+     */
+    @PostMapping("/{userId}/ops")
+    public ResponseEntity<Cart> applyOperations(
+            @PathVariable Long userId,
+            @RequestBody List<CartOperation> operations
+    ) {
+        return ResponseEntity.ok(cartService.applyOperations(userId, operations));
+    }
+
     /** Manejo simple de errores (opcional) */
     @ExceptionHandler(IllegalArgumentException.class)
     public ResponseEntity<String> handleBadRequest(IllegalArgumentException ex) {
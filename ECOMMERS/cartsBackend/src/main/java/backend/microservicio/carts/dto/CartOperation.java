@@ -0,0 +1,23 @@
+// src/main/java/backend/microservicio/carts/dto/CartOperation.java
+package backend.microservicio.carts.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * Una operación de POST /api/cart/{userId}/ops.
+ * <ul>
+ *   <li>add: productId + quantity (> 0), suma como /add;</li>
+ *   <li>set: itemId o productId + quantity (>= 0; 0 lo quita), como /item;</li>
+ *   <li>remove: itemId o productId;</li>
+ *   <li>clear: vacía el carrito.</li>
+ * </ul>
+ */
+public record CartOperation(Type op, Long itemId, Long productId, Integer quantity) {
+
+    public enum Type {
+        @JsonProperty("add") ADD,
+        @JsonProperty("set") SET,
+        @JsonProperty("remove") REMOVE,
+        @JsonProperty("clear") CLEAR
+    }
+}
@@ -20,6 +20,17 @@ public class Cart {
     @OrderBy("id ASC")
     private List<CartItem> items = new ArrayList<>();
 
+    /**
+     * Contadores del badge: suma de cantidades e ítems distintos. Los recalcula
+     * {@link #recount()} con cada cambio y se guardan junto con los ítems.
+     * Los carritos anteriores a estas columnas se rellenan en db/carts-schema.sql.
+     */
+    @Column(name = "total_units")
+    private Integer totalUnits = 0;
+
+    @Column(name = "distinct_items")
+    private Integer distinctItems = 0;
+
     /** Objeto completo del usuario (NO se persiste) */
     @Transient
     private Map<String, Object> user; // <-- nuevo
@@ -34,6 +45,19 @@ public class Cart {
     public List<CartItem> getItems() { return items; }
     public void setItems(List<CartItem> items) { this.items = items; }
 
+    public Integer getTotalUnits() { return totalUnits; }
+    public Integer getDistinctItems() { return distinctItems; }
+
+    /** Recalcula los contadores a partir de los ítems; llamar tras cada cambio. */
+    public void recount() {
+        int units = 0;
+        for (CartItem item : items) {
+            units += item.getQuantity();
+        }
+        this.totalUnits = units;
+        this.distinctItems = items.size();
+    }
+
     public Map<String, Object> getUser() { return user; }                 // <-- nuevo
     public void setUser(Map<String, Object> user) { this.user = user; }   // <-- nuevo
 }
@@ -3,8 +3,19 @@ package backend.microservicio.carts.repository;
 
 import backend.microservicio.carts.model.Cart;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
 import java.util.Optional;
 
 public interface CartRepository extends JpaRepository<Cart, Long> {
     Optional<Cart> findByUserId(Long userId);
+
+    // Contadores del badge: solo la fila del carrito, sin ítems
+    // (idx_carts_user_counters los cubre: index-only scan)
+    @Query("select c.totalUnits from Cart c where c.userId = :userId")
+    Optional<Integer> findTotalUnitsByUserId(@Param("userId") Long userId);
+
+    @Query("select c.distinctItems from Cart c where c.userId = :userId")
+    Optional<Integer> findDistinctItemsByUserId(@Param("userId") Long userId);
 }
@@ -1,50 +1,45 @@
 // src/main/java/backend/microservicio/carts/service/CartService.java
 package backend.microservicio.carts.service;
 
+import backend.microservicio.carts.dto.CartOperation;
 import backend.microservicio.carts.model.Cart;
 import backend.microservicio.carts.model.CartItem;
 import backend.microservicio.carts.repository.CartRepository;
 import jakarta.persistence.EntityNotFoundException;
-import jakarta.transaction.Transactional;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestClientException;
 import org.springframework.web.client.RestTemplate;
 
-import java.util.Collection;
-import java.util.List;
-import java.util.Map;
+import java.util.*;
 
 @Service
-@Transactional
 public class CartService {
 
+    /** IDs máximos que acepta Products en /products/batch */
+    private static final int PRODUCTS_BATCH_SIZE = 500;
+
+    /** Operaciones máximas por llamada a /ops */
+    public static final int MAX_OPERATIONS = 100;
+
+    private final CartStore store;
     private final CartRepository cartRepo;
     private final RestTemplate http;
     private final String usersBaseUrl;
     private final String productsBaseUrl;
 
-    public CartService(CartRepository cartRepo,
+    public CartService(CartStore store,
+                       CartRepository cartRepo,
                        RestTemplate http,
                        @Value("${users.base-url:http://localhost:8080/api}") String usersBaseUrl,
                        @Value("${products.base-url:http://localhost:8082/api}") String productsBaseUrl) {
+        this.store = store;
         this.cartRepo = cartRepo;
         this.http = http;
         this.usersBaseUrl = usersBaseUrl;
         this.productsBaseUrl = productsBaseUrl;
     }
 
-    // ----------------- helpers de carga -----------------
-
-    private Cart loadCart(Long userId) {
-        return cartRepo.findByUserId(userId)
-                .orElseGet(() -> {
-                    Cart c = new Cart();
-                    c.setUserId(userId);
-                    return cartRepo.save(c);
-                });
-    }
-
     // ----------------- helpers REST -----------------
 
     private Map<String, Object> fetchUserOrThrow(Long userId) {
@@ -79,27 +74,67 @@ public class CartService {
         }
     }
 
+    /**
+     * POST /products/batch: todos los productos de un carrito de una vez (en
+     * bloques de 500). Los que no existen no aparecen en el mapa.
+     */
+    private Map<Long, Map<String, Object>> fetchProducts(Collection<Long> productIds) {
+        List<Long> ids = new ArrayList<>(new LinkedHashSet<>(productIds));
+        Map<Long, Map<String, Object>> byId = new HashMap<>();
+        for (int i = 0; i < ids.size(); i += PRODUCTS_BATCH_SIZE) {
+            List<Long> chunk = ids.subList(i, Math.min(i + PRODUCTS_BATCH_SIZE, ids.size()));
+            try {
+                @SuppressWarnings("unchecked")
+                List<Map<String, Object>> body = http.postForObject(productsBaseUrl + "/products/batch", chunk, List.class);
+                if (body != null) {
+                    for (Map<String, Object> p : body) {
+                        Object id = p.get("id");
+                        if (id instanceof Number n) byId.put(n.longValue(), p);
+                    }
+                }
+            } catch (RestClientException ex) {
+                throw new IllegalStateException("No se pudo consultar productos remotos: " + ex.getMessage(), ex);
+            }
+        }
+        return byId;
+    }
+
     private void attachUserAndProducts(Cart cart) {
+        attachUserAndProducts(cart, null, Map.of());
+    }
+
+    /**
+     * Adjunta user y productos. {@code user} y {@code known} son lo que ya se
+     * haya consultado en la misma petición; solo se piden los que faltan.
+     */
+    private void attachUserAndProducts(Cart cart, Map<String, Object> user, Map<Long, Map<String, Object>> known) {
         // Adjunta user completo
-        if (cart.getUserId() != null) {
+        if (user != null) {
+            cart.setUser(user);
+        } else if (cart.getUserId() != null) {
             try { cart.setUser(fetchUserOrThrow(cart.getUserId())); }
             catch (Exception ignore) { cart.setUser(null); }
         }
-        // Adjunta product completo por cada ítem
-        if (cart.getItems() != null) {
+        // Adjunta los productos de todos los ítems con una sola llamada
+        if (cart.getItems() != null && !cart.getItems().isEmpty()) {
+            List<Long> ids = new ArrayList<>();
             for (CartItem it : cart.getItems()) {
-                if (it.getProductId() != null) {
-                    try { it.setProduct(fetchProductOrThrow(it.getProductId())); }
-                    catch (Exception ignore) { it.setProduct(null); }
-                }
+                if (it.getProductId() != null && !known.containsKey(it.getProductId())) ids.add(it.getProductId());
+            }
+            Map<Long, Map<String, Object>> products = new HashMap<>(known);
+            try { if (!ids.isEmpty()) products.putAll(fetchProducts(ids)); }
+            catch (Exception ignore) { }
+            for (CartItem it : cart.getItems()) {
+                it.setProduct(it.getProductId() != null ? products.get(it.getProductId()) : null);
             }
         }
     }
 
     // ----------------- API usada por el Controller -----------------
+    // Lecturas y cambios van contra CartStore (memoria); la BBDD se escribe en diferido.
 
     public Cart getOrCreateCart(Long userId) {
-        Cart cart = loadCart(userId);
+        Cart cart = store.get(userId);
         attachUserAndProducts(cart);
         return cart;
     }
@@ -110,58 +145,110 @@ public class CartService {
         fetchUserOrThrow(userId);
         fetchProductOrThrow(productId);
 
-        Cart cart = loadCart(userId);
-        cart.getItems().stream()
-                .filter(i -> i.getProductId().equals(productId))
-                .findFirst()
-                .ifPresentOrElse(
-                        item -> item.setQuantity(item.getQuantity() + qty),
-                        () -> {
-                            CartItem item = new CartItem();
-                            item.setCart(cart);
-                            item.setProductId(productId);
-                            item.setQuantity(qty);
-                            cart.getItems().add(item);
-                        }
-                );
-        Cart saved = cartRepo.save(cart);
+        Cart saved = store.update(userId, draft -> draft.add(productId, qty));
         attachUserAndProducts(saved);
         return saved;
     }
 
     public Cart clearCart(Long userId) {
-        Cart cart = loadCart(userId);
-        cart.getItems().clear();
-        Cart saved = cartRepo.save(cart);
+        Cart saved = store.update(userId, CartStore.Draft::clear);
         attachUserAndProducts(saved);
         return saved;
     }
 
+    // Contadores: de memoria si el carrito está cargado y, si no, una lectura
+    // de la fila (ya guardada: solo se descartan carritos sin cambios pendientes).
+    // Nunca crean el carrito: si no existe, 0.
+
     public int countUnits(Long userId) {
-        return loadCart(userId).getItems()
-                .stream()
-                .mapToInt(CartItem::getQuantity)
-                .sum();
+        return store.peek(userId).map(Cart::getTotalUnits)
+                .orElseGet(() -> cartRepo.findTotalUnitsByUserId(userId).orElse(0));
     }
 
     public int countDistinctItems(Long userId) {
-        return loadCart(userId).getItems().size();
+        return store.peek(userId).map(Cart::getDistinctItems)
+                .orElseGet(() -> cartRepo.findDistinctItemsByUserId(userId).orElse(0));
     }
 
     public Cart updateItemQuantity(Long userId, Long cartItemId, int quantity) {
-        Cart cart = loadCart(userId);
-        CartItem item = cart.getItems().stream()
-                .filter(i -> i.getId().equals(cartItemId))
-                .findFirst()
-                .orElseThrow(() -> new EntityNotFoundException("Ítem no encontrado: " + cartItemId));
-
-        if (quantity > 0) {
-            item.setQuantity(quantity);
-        } else {
-            cart.getItems().remove(item);
-        }
-        Cart saved = cartRepo.save(cart);
+        Cart saved = store.update(userId, draft -> draft.setQuantity(cartItemId, quantity));
         attachUserAndProducts(saved);
         return saved;
     }
+
+    /**
+     * Aplica varias operaciones en orden sobre el carrito: o todas o ninguna.
+     * Usuario y productos de los "add" se validan una vez antes de tocar nada,
+     * y el carrito resultante se enriquece una sola vez.
+     */
+    public Cart applyOperations(Long userId, List<CartOperation> operations) {
+        List<Long> added = validate(operations);
+
+        Map<String, Object> user = null;
+        Map<Long, Map<String, Object>> products = Map.of();
+        if (!added.isEmpty()) {
+            user = fetchUserOrThrow(userId);
+            products = fetchProducts(added);
+            for (Long id : added) {
+                if (!products.containsKey(id)) throw new EntityNotFoundException("Producto no encontrado: " + id);
+            }
+        }
+
+        Cart saved = store.update(userId, draft -> {
+            for (CartOperation op : operations) {
+                switch (op.op()) {
+                    case ADD -> draft.add(op.productId(), op.quantity());
+                    case SET -> {
+                        if (op.itemId() != null) draft.setQuantity(op.itemId(), op.quantity());
+                        else draft.setProductQuantity(op.productId(), op.quantity());
+                    }
+                    case REMOVE -> {
+                        if (op.itemId() != null) draft.remove(op.itemId());
+                        else draft.removeProduct(op.productId());
+                    }
+                    case CLEAR -> draft.clear();
+                }
+            }
+        });
+        attachUserAndProducts(saved, user, products);
+        return saved;
+    }
+
+    /** Comprueba la forma de cada operación; devuelve los productos que se añaden. */
+    private static List<Long> validate(List<CartOperation> operations) {
+        if (operations == null || operations.isEmpty()) {
+            throw new IllegalArgumentException("Indica al menos una operación");
+        }
+        if (operations.size() > MAX_OPERATIONS) {
+            throw new IllegalArgumentException("Como máximo " + MAX_OPERATIONS + " operaciones por petición");
+        }
+        List<Long> added = new ArrayList<>();
+        for (int i = 0; i < operations.size(); i++) {
+            CartOperation op = operations.get(i);
+            String at = "Operación " + (i + 1) + ": ";
+            if (op == null || op.op() == null) {
+                throw new IllegalArgumentException(at + "op es requerido (add, set, remove o clear)");
+            }
+            switch (op.op()) {
+                case ADD -> {
+                    if (op.productId() == null) throw new IllegalArgumentException(at + "productId es requerido");
+                    if (op.quantity() == null || op.quantity() < 1) throw new IllegalArgumentException(at + "quantity debe ser al menos 1");
+                    added.add(op.productId());
+                }
+                case SET -> {
+                    requireOneTarget(op, at);
+                    if (op.quantity() == null || op.quantity() < 0) throw new IllegalArgumentException(at + "quantity debe ser >= 0");
+                }
+                case REMOVE -> requireOneTarget(op, at);
+                case CLEAR -> { }
+            }
+        }
+        return added;
+    }
+
+    private static void requireOneTarget(CartOperation op, String at) {
+        if ((op.itemId() == null) == (op.productId() == null)) {
+            throw new IllegalArgumentException(at + "indica itemId o productId (solo uno)");
+        }
+    }
 }
@@ -0,0 +1,473 @@
+// src/main/java/backend/microservicio/carts/service/CartStore.java
+package backend.microservicio.carts.service;
+
+import backend.microservicio.carts.model.Cart;
+import backend.microservicio.carts.model.CartItem;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityNotFoundException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * Carritos en memoria: camino principal de lectura y escritura.
+ *
+ * <ul>
+ *   <li>Cada carrito se carga de carts/cart_items la primera vez que se usa
+ *       (también tras un reinicio) y desde entonces se lee y cambia aquí.</li>
+ *   <li>Los cambios se serializan por usuario con un cerrojo de un conjunto
+ *       fijo ({@code carts.store.lock-stripes}): dos usuarios del mismo tramo
+ *       se esperan, pero nunca hay un cerrojo global.</li>
+ *   <li>Los ids de carritos e ítems se reservan por bloques de las secuencias
+ *       de las tablas, así un ítem nuevo ya tiene el id que tendrá su fila.</li>
+ *   <li>{@link #flush} escribe cada {@code carts.store.flush-interval-ms} los
+ *       carritos cambiados: varios cambios del mismo carrito entre dos pasadas
+ *       son una sola escritura, y todos los carritos van en tres sentencias.</li>
+ *   <li>Pasado el máximo ({@code carts.store.max-carts}) se descartan los
+ *       carritos ya guardados que lleven más tiempo sin usarse; los que no se
+ *       tocan en {@code carts.store.idle-ms} se descartan siempre.</li>
+ * </ul>
+ *
+ * Al parar se guarda todo lo pendiente. Si el proceso muere sin parar se
+ * pierden como mucho los cambios del último intervalo. Supone una sola
+ * instancia del servicio: nadie más escribe estas tablas.
+ */
+@Component
+public class CartStore {
+
+    private static final Logger log = LoggerFactory.getLogger(CartStore.class);
+
+    private static final String LOAD_SQL =
+            "SELECT c.id, i.id, i.product_id, i.quantity FROM public.carts c " +
+            "LEFT JOIN public.cart_items i ON i.cart_id = c.id " +
+            "WHERE c.id = (SELECT min(id) FROM public.carts WHERE user_id = ?) ORDER BY i.id";
+
+    private static final String NEXT_IDS_SQL =
+            "SELECT nextval(pg_get_serial_sequence(?, 'id')) FROM generate_series(1, ?)";
+
+    private static final String UPSERT_CARTS_SQL =
+            "INSERT INTO public.carts (id, user_id, total_units, distinct_items) " +
+            "SELECT * FROM unnest(?::bigint[], ?::bigint[], ?::int[], ?::int[]) " +
+            "ON CONFLICT (id) DO UPDATE SET total_units = EXCLUDED.total_units, " +
+            "distinct_items = EXCLUDED.distinct_items";
+
+    // Lo que ya no está en memoria se ha quitado del carrito
+    private static final String DELETE_ITEMS_SQL =
+            "DELETE FROM public.cart_items WHERE cart_id = ANY (?) AND id <> ALL (?)";
+
+    private static final String UPSERT_ITEMS_SQL =
+            "INSERT INTO public.cart_items (id, cart_id, product_id, quantity) " +
+            "SELECT * FROM unnest(?::bigint[], ?::bigint[], ?::bigint[], ?::int[]) " +
+            "ON CONFLICT (id) DO UPDATE SET quantity = EXCLUDED.quantity";
+
+    private final JdbcTemplate jdbc;
+    private final TransactionTemplate tx;
+    private final int maxCarts;
+    private final long idleMs;
+    private final ReentrantLock[] stripes;
+    private final IdBlock cartIds;
+    private final IdBlock itemIds;
+
+    private final Map<Long, State> carts = new ConcurrentHashMap<>();
+    private final Set<Long> dirty = ConcurrentHashMap.newKeySet();
+    private final ReentrantLock flushing = new ReentrantLock();
+
+    public CartStore(JdbcTemplate jdbc,
+                     TransactionTemplate tx,
+                     @Value("${carts.store.max-carts:10000}") int maxCarts,
+                     @Value("${carts.store.idle-ms:1800000}") long idleMs,
+                     @Value("${carts.store.lock-stripes:64}") int lockStripes,
+                     @Value("${carts.store.id-block-size:50}") int idBlockSize) {
+        this.jdbc = jdbc;
+        this.tx = tx;
+        this.maxCarts = maxCarts;
+        this.idleMs = idleMs;
+        this.stripes = new ReentrantLock[lockStripes];
+        for (int i = 0; i < lockStripes; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+        this.cartIds = new IdBlock("public.carts", idBlockSize);
+        this.itemIds = new IdBlock("public.cart_items", idBlockSize);
+    }
+
+    // ----------------- API usada por CartService -----------------
+
+    /** Copia del carrito del usuario (lo crea vacío si no tiene). */
+    public Cart get(Long userId) {
+        ReentrantLock lock = lockFor(userId);
+        lock.lock();
+        try {
+            return resident(userId).toCart();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Aplica {@code changes} sobre un borrador del carrito y, si termina sin
+     * excepción, lo deja como nuevo estado; si lanza, el carrito no cambia.
+     * Devuelve una copia del resultado.
+     */
+    public Cart update(Long userId, Consumer<Draft> changes) {
+        ReentrantLock lock = lockFor(userId);
+        lock.lock();
+        try {
+            State state = resident(userId);
+            Draft draft = new Draft(state.items);
+            changes.accept(draft);
+            state.items = draft.items;
+            state.version++;
+            dirty.add(userId);
+            return state.toCart();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Copia del carrito si ya está en memoria (sin cargarlo ni crearlo). */
+    public Optional<Cart> peek(Long userId) {
+        if (!carts.containsKey(userId)) {
+            return Optional.empty();
+        }
+        ReentrantLock lock = lockFor(userId);
+        lock.lock();
+        try {
+            State state = carts.get(userId);
+            return state == null ? Optional.empty() : Optional.of(state.toCart());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Borrador de un carrito: lo que puede hacer una mutación. */
+    public final class Draft {
+
+        private final List<Line> items;
+
+        private Draft(List<Line> current) {
+            this.items = new ArrayList<>(current.size() + 1);
+            for (Line l : current) {
+                items.add(new Line(l.id, l.productId, l.quantity));
+            }
+        }
+
+        /** Suma {@code qty} unidades del producto (nuevo ítem si no estaba). */
+        public void add(Long productId, int qty) {
+            if (qty <= 0) throw new IllegalArgumentException("qty debe ser > 0");
+            for (Line l : items) {
+                if (l.productId == productId) {
+                    if (l.quantity > Integer.MAX_VALUE - qty) {
+                        throw new IllegalArgumentException("Cantidad demasiado grande para el producto " + productId);
+                    }
+                    l.quantity += qty;
+                    return;
+                }
+            }
+            items.add(new Line(itemIds.next(), productId, qty));
+        }
+
+        /** Cambia la cantidad de un ítem; 0 lo quita. */
+        public void setQuantity(Long itemId, int quantity) {
+            if (quantity < 0) throw new IllegalArgumentException("quantity debe ser >= 0");
+            Line line = find(itemId);
+            if (quantity == 0) {
+                items.remove(line);
+            } else {
+                line.quantity = quantity;
+            }
+        }
+
+        public void remove(Long itemId) {
+            items.remove(find(itemId));
+        }
+
+        /** Como {@link #setQuantity} pero buscando el ítem por producto. */
+        public void setProductQuantity(Long productId, int quantity) {
+            if (quantity < 0) throw new IllegalArgumentException("quantity debe ser >= 0");
+            Line line = findProduct(productId);
+            if (quantity == 0) {
+                items.remove(line);
+            } else {
+                line.quantity = quantity;
+            }
+        }
+
+        public void removeProduct(Long productId) {
+            items.remove(findProduct(productId));
+        }
+
+        public void clear() {
+            items.clear();
+        }
+
+        private Line find(Long itemId) {
+            for (Line l : items) {
+                if (itemId != null && l.id == itemId) return l;
+            }
+            throw new EntityNotFoundException("Ítem no encontrado: " + itemId);
+        }
+
+        private Line findProduct(Long productId) {
+            for (Line l : items) {
+                if (productId != null && l.productId == productId) return l;
+            }
+            throw new EntityNotFoundException("El producto no está en el carrito: " + productId);
+        }
+    }
+
+    // ----------------- escritura diferida -----------------
+
+    /** Guarda los carritos cambiados y después descarta los que sobran. */
+    @Scheduled(fixedDelayString = "${carts.store.flush-interval-ms:500}")
+    public void flush() {
+        flushing.lock();
+        try {
+            if (!dirty.isEmpty()) {
+                List<Snapshot> batch = snapshotDirty();
+                try {
+                    write(batch);
+                } catch (RuntimeException ex) {
+                    // Uno a uno: que un carrito que falla no retenga a los demás
+                    log.warn("Fallo al guardar {} carritos, se reintenta uno a uno: {}", batch.size(), ex.getMessage());
+                    List<Snapshot> written = new ArrayList<>();
+                    for (Snapshot s : batch) {
+                        try {
+                            write(List.of(s));
+                            written.add(s);
+                        } catch (RuntimeException one) {
+                            log.error("No se pudo guardar el carrito del usuario {}: {}", s.userId, one.getMessage());
+                        }
+                    }
+                    batch = written;
+                }
+                markClean(batch);
+            }
+            evict();
+        } finally {
+            flushing.unlock();
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+        if (!dirty.isEmpty()) {
+            log.error("Carritos sin guardar al parar: {}", dirty.size());
+        }
+    }
+
+    private List<Snapshot> snapshotDirty() {
+        List<Snapshot> batch = new ArrayList<>(dirty.size());
+        for (Long userId : dirty) {
+            ReentrantLock lock = lockFor(userId);
+            lock.lock();
+            try {
+                State state = carts.get(userId);
+                if (state != null) {
+                    batch.add(new Snapshot(userId, state.cartId, state.version, List.copyOf(state.items)));
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+        return batch;
+    }
+
+    // Tres sentencias para todo el lote, en una transacción
+    private void write(List<Snapshot> batch) {
+        int n = batch.size();
+        Long[] cartIdArr = new Long[n];
+        Long[] userIdArr = new Long[n];
+        Integer[] unitsArr = new Integer[n];
+        Integer[] distinctArr = new Integer[n];
+        List<Long> itemId = new ArrayList<>();
+        List<Long> itemCart = new ArrayList<>();
+        List<Long> itemProduct = new ArrayList<>();
+        List<Integer> itemQty = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            Snapshot s = batch.get(i);
+            int units = 0;
+            for (Line l : s.items) {
+                itemId.add(l.id);
+                itemCart.add(s.cartId);
+                itemProduct.add(l.productId);
+                itemQty.add(l.quantity);
+                units += l.quantity;
+            }
+            cartIdArr[i] = s.cartId;
+            userIdArr[i] = s.userId;
+            unitsArr[i] = units;
+            distinctArr[i] = s.items.size();
+        }
+        Long[] itemIdArr = itemId.toArray(Long[]::new);
+        tx.executeWithoutResult(status -> {
+            jdbc.update(UPSERT_CARTS_SQL, cartIdArr, userIdArr, unitsArr, distinctArr);
+            jdbc.update(DELETE_ITEMS_SQL, cartIdArr, itemIdArr);
+            if (itemIdArr.length > 0) {
+                jdbc.update(UPSERT_ITEMS_SQL, itemIdArr, itemCart.toArray(Long[]::new),
+                        itemProduct.toArray(Long[]::new), itemQty.toArray(Integer[]::new));
+            }
+        });
+    }
+
+    // Limpio solo si nadie lo ha vuelto a cambiar mientras se escribía
+    private void markClean(List<Snapshot> written) {
+        for (Snapshot s : written) {
+            ReentrantLock lock = lockFor(s.userId);
+            lock.lock();
+            try {
+                State state = carts.get(s.userId);
+                if (state == null || state.version == s.version) {
+                    dirty.remove(s.userId);
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /** Descarta los inactivos y, si sigue sobrando, los menos usados; nunca uno pendiente de guardar. */
+    private void evict() {
+        long now = System.currentTimeMillis();
+        int excess = carts.size() - maxCarts;
+        List<Map.Entry<Long, State>> candidates = new ArrayList<>();
+        for (Map.Entry<Long, State> e : carts.entrySet()) {
+            if (now - e.getValue().lastAccess > idleMs) {
+                if (evict(e.getKey(), now)) excess--;
+            } else if (excess > 0) {
+                candidates.add(e);
+            }
+        }
+        if (excess <= 0) return;
+        candidates.sort(Comparator.comparingLong(e -> e.getValue().lastAccess));
+        for (int i = 0; i < candidates.size() && excess > 0; i++) {
+            if (evict(candidates.get(i).getKey(), -1)) excess--;
+        }
+    }
+
+    /** Quita el carrito si está guardado y, con {@code now} >= 0, si sigue inactivo. */
+    private boolean evict(Long userId, long now) {
+        ReentrantLock lock = lockFor(userId);
+        lock.lock();
+        try {
+            State state = carts.get(userId);
+            if (state == null || dirty.contains(userId)
+                    || (now >= 0 && now - state.lastAccess <= idleMs)) {
+                return false;
+            }
+            carts.remove(userId);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // ----------------- carga y estado -----------------
+
+    private ReentrantLock lockFor(Long userId) {
+        return stripes[Math.floorMod(userId.hashCode(), stripes.length)];
+    }
+
+    /** Con el cerrojo del usuario: el carrito en memoria, cargándolo o creándolo si hace falta. */
+    private State resident(Long userId) {
+        State state = carts.get(userId);
+        if (state == null) {
+            state = load(userId);
+            carts.put(userId, state);
+        }
+        state.lastAccess = System.currentTimeMillis();
+        return state;
+    }
+
+    private State load(Long userId) {
+        List<Line> items = new ArrayList<>();
+        Long[] cartId = {null};
+        jdbc.query(LOAD_SQL, rs -> {
+            cartId[0] = rs.getLong(1);
+            long itemId = rs.getLong(2);
+            if (!rs.wasNull()) {
+                items.add(new Line(itemId, rs.getLong(3), rs.getInt(4)));
+            }
+        }, userId);
+        if (cartId[0] != null) {
+            return new State(cartId[0], userId, items);
+        }
+        // Carrito nuevo: se guarda en la siguiente pasada, como antes al verlo
+        State created = new State(cartIds.next(), userId, items);
+        created.version = 1;
+        dirty.add(userId);
+        return created;
+    }
+
+    private static final class State {
+        final long cartId;
+        final long userId;
+        List<Line> items;
+        long version;
+        volatile long lastAccess;
+
+        State(long cartId, long userId, List<Line> items) {
+            this.cartId = cartId;
+            this.userId = userId;
+            this.items = items;
+        }
+
+        Cart toCart() {
+            Cart cart = new Cart();
+            cart.setId(cartId);
+            cart.setUserId(userId);
+            for (Line l : items) {
+                CartItem item = new CartItem();
+                item.setId(l.id);
+                item.setCart(cart);
+                item.setProductId(l.productId);
+                item.setQuantity(l.quantity);
+                cart.getItems().add(item);
+            }
+            cart.recount();
+            return cart;
+        }
+    }
+
+    private static final class Line {
+        final long id;
+        final long productId;
+        int quantity;
+
+        Line(long id, long productId, int quantity) {
+            this.id = id;
+            this.productId = productId;
+            this.quantity = quantity;
+        }
+    }
+
+    private record Snapshot(long userId, long cartId, long version, List<Line> items) {}
+
+    /** Ids reservados de la secuencia de una tabla, de {@code size} en {@code size}. */
+    private final class IdBlock {
+        private final String table;
+        private final int size;
+        private final Deque<Long> free = new ArrayDeque<>();
+
+        IdBlock(String table, int size) {
+            this.table = table;
+            this.size = size;
+        }
+
+        synchronized long next() {
+            if (free.isEmpty()) {
+                free.addAll(jdbc.queryForList(NEXT_IDS_SQL, Long.class, table, size));
+            }
+            return free.removeFirst();
+        }
+    }
+}
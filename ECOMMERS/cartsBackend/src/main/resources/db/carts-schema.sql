@@ -0,0 +1,21 @@
+-- Objetos de BBDD que Hibernate (ddl-auto=update) no sabe crear.
+-- Se ejecuta en cada arranque despues de Hibernate: todo debe ser idempotente.
+
+-- Contadores del badge (total_units, distinct_items): los carritos creados
+-- antes de existir las columnas las tienen a NULL; se calculan una vez desde
+-- cart_items. Despues los mantiene Cart.recount() en cada mutacion.
+UPDATE public.carts c
+   SET total_units = s.units,
+       distinct_items = s.items
+  FROM (SELECT c2.id,
+               coalesce(sum(i.quantity), 0) AS units,
+               count(i.id) AS items
+          FROM public.carts c2
+          LEFT JOIN public.cart_items i ON i.cart_id = c2.id
+         WHERE c2.total_units IS NULL OR c2.distinct_items IS NULL
+         GROUP BY c2.id) s
+ WHERE c.id = s.id;
+
+-- Lectura de los contadores por usuario solo desde el indice (index-only scan)
+CREATE INDEX IF NOT EXISTS idx_carts_user_counters
+    ON public.carts (user_id) INCLUDE (total_units, distinct_items);
@@ -0,0 +1,162 @@
+package backend.microservicio.carts.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Escritura diferida de CartStore sin base de datos: JdbcTemplate falso que
+ * apunta las escrituras y no tiene carritos guardados.
+ */
+class CartStoreFlushTest {
+
+	private static final long USER = 7L;
+
+	/** Escrituras de carritos: cada una es el array de cantidades totales del lote. */
+	private final List<Integer[]> cartWrites = new ArrayList<>();
+	private Runnable duringWrite = () -> {};
+	private int failingWrites;
+
+	private final JdbcTemplate jdbc = new JdbcTemplate() {
+		private final AtomicLong ids = new AtomicLong(100);
+
+		@Override
+		public void query(String sql, RowCallbackHandler rch, Object... args) {
+			// ningún carrito guardado: cada usuario empieza con uno nuevo
+		}
+
+		@Override
+		@SuppressWarnings("unchecked")
+		public <T> List<T> queryForList(String sql, Class<T> elementType, Object... args) {
+			int n = (Integer) args[1];
+			List<T> out = new ArrayList<>(n);
+			for (int i = 0; i < n; i++) out.add((T) Long.valueOf(ids.incrementAndGet()));
+			return out;
+		}
+
+		@Override
+		public int update(String sql, Object... args) {
+			if (sql.startsWith("INSERT INTO public.carts")) {
+				if (failingWrites > 0) {
+					failingWrites--;
+					throw new IllegalStateException("fallo simulado");
+				}
+				cartWrites.add((Integer[]) args[2]);
+				Runnable r = duringWrite;
+				duringWrite = () -> {};
+				r.run();
+			}
+			return 1;
+		}
+	};
+
+	private final TransactionTemplate tx = new TransactionTemplate() {
+		@Override
+		public <T> T execute(TransactionCallback<T> action) {
+			return action.doInTransaction(null);
+		}
+	};
+
+	private CartStore store(int maxCarts) {
+		return new CartStore(jdbc, tx, maxCarts, 60_000, 4, 10);
+	}
+
+	@Test
+	void variosCambiosEntreDosPasadasSonUnaEscritura() {
+		CartStore store = store(100);
+		store.update(USER, d -> d.add(1L, 1));
+		store.update(USER, d -> d.add(1L, 2));
+		store.update(USER, d -> d.add(2L, 1));
+
+		store.flush();
+		assertEquals(1, cartWrites.size());
+		assertArrayEquals(new Integer[]{4}, cartWrites.get(0));
+
+		store.flush();
+		assertEquals(1, cartWrites.size(), "ya estaba limpio");
+	}
+
+	@Test
+	void unCambioMientrasSeEscribeSeGuardaEnLaSiguientePasada() {
+		CartStore store = store(100);
+		store.update(USER, d -> d.add(1L, 1));
+		duringWrite = () -> store.update(USER, d -> d.add(1L, 5));
+
+		store.flush();
+		assertArrayEquals(new Integer[]{1}, cartWrites.get(0));
+
+		store.flush();
+		assertEquals(2, cartWrites.size(), "la versión cambió durante la escritura: sigue pendiente");
+		assertArrayEquals(new Integer[]{6}, cartWrites.get(1));
+
+		store.flush();
+		assertEquals(2, cartWrites.size());
+	}
+
+	@Test
+	void unaEscrituraFallidaQuedaPendiente() {
+		CartStore store = store(100);
+		store.update(USER, d -> d.add(1L, 3));
+		failingWrites = 2; // el lote y el reintento uno a uno
+
+		store.flush();
+		assertTrue(cartWrites.isEmpty());
+
+		store.flush();
+		assertEquals(1, cartWrites.size());
+		assertArrayEquals(new Integer[]{3}, cartWrites.get(0));
+	}
+
+	@Test
+	void unCarritoQueFallaNoRetieneALosDemas() {
+		CartStore store = store(100);
+		store.update(1L, d -> d.add(1L, 1));
+		store.update(2L, d -> d.add(1L, 2));
+		failingWrites = 2; // el lote y el primero del reintento
+
+		store.flush();
+		assertEquals(1, cartWrites.size());
+
+		store.flush();
+		assertEquals(2, cartWrites.size(), "solo se reescribe el que falló");
+		store.flush();
+		assertEquals(2, cartWrites.size());
+	}
+
+	@Test
+	void nuncaSeDescartaUnCarritoPendiente() {
+		CartStore store = store(0);
+		store.update(USER, d -> d.add(1L, 1));
+		failingWrites = 2;
+
+		store.flush();
+		assertTrue(store.peek(USER).isPresent(), "sin guardar: no se puede descartar");
+
+		store.flush();
+		assertTrue(store.peek(USER).isEmpty(), "guardado y por encima del máximo: se descarta");
+	}
+
+	@Test
+	void unaMutacionQueLanzaNoCambiaNadaNiEnsuciaElCarrito() {
+		CartStore store = store(100);
+		store.update(USER, d -> d.add(1L, 2));
+		store.flush();
+
+		assertThrows(IllegalArgumentException.class, () -> store.update(USER, d -> {
+			d.add(1L, 10);
+			d.add(2L, 0);
+		}));
+		assertEquals(2, store.get(USER).getItems().get(0).getQuantity().intValue());
+
+		store.flush();
+		assertEquals(1, cartWrites.size());
+	}
+}
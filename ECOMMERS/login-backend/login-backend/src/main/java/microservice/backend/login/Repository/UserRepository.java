@@ -1,8 +1,11 @@
 package microservice.backend.login.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 import microservice.backend.login.model.User;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 
 public interface UserRepository extends JpaRepository<User, Long> {
@@ -11,4 +14,8 @@ public interface UserRepository extends JpaRepository<User, Long> {
     Optional<User> findByUsernameOrEmail(String username, String email);
     Boolean existsByUsername(String username);
     Boolean existsByEmail(String email);
+
+    /** Carga varios usuarios con sus roles en una sola consulta (evita N+1 sobre user_roles) */
+    @EntityGraph(attributePaths = "roles")
+    List<User> findByIdIn(Collection<Long> ids);
 }
@@ -62,7 +62,7 @@ public class SecurityConfig {
                                 "/swagger-ui.html",
                                 "/webjars/**"
                         ).permitAll()
-                        // Hacer público GET /api/user/{id}
+                        // Hacer público GET /api/user/{id} y GET /api/user/batch
                         .requestMatchers(HttpMethod.GET, "/api/user/*").permitAll()
                         // El resto requiere JWT
                         .anyRequest().authenticated()
@@ -14,6 +14,8 @@ import org.springframework.web.server.ResponseStatusException;
 import org.springframework.http.HttpStatus;
 
 import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
 import java.util.Set;
 import java.util.stream.Collectors;
 
@@ -22,6 +24,9 @@ import java.util.stream.Collectors;
 @CrossOrigin(origins = "http://localhost:4200")
 public class UserController {
 
+    /** Máximo de IDs aceptados por /batch en una sola llamada */
+    private static final int MAX_BATCH_IDS = 500;
+
     private final UserService userService;
 
     public UserController(UserService userService) {
@@ -85,6 +90,30 @@ public class UserController {
         }
     }
 
+    @Operation(summary = "Devuelve varios usuarios por ID en una sola llamada (los inexistentes se omiten)")
+    @GetMapping(path = "/batch", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<List<UserInfoResponse>> getByIds(@RequestParam List<Long> ids) {
+        if (ids.size() > MAX_BATCH_IDS) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Como máximo " + MAX_BATCH_IDS + " ids por llamada");
+        }
+        // "?ids=1,,2" llega con nulls: se ignoran
+        Set<Long> distinct = ids.stream().filter(Objects::nonNull).collect(Collectors.toSet());
+        List<UserInfoResponse> resp = userService.findAllByIds(distinct)
+                .stream()
+                .map(user -> new UserInfoResponse(
+                        user.getId(),
+                        user.getUsername(),
+                        user.getEmail(),
+                        user.getRoles()
+                                .stream()
+                                .map(r -> r.getName().name())
+                                .collect(Collectors.toSet())
+                ))
+                .toList();
+        return ResponseEntity.ok(resp);
+    }
+
 
 
 
@@ -9,6 +9,9 @@ import microservice.backend.login.model.User;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
+import java.util.Collection;
+import java.util.List;
+
 @Service
 public class UserService {
 
@@ -71,6 +74,14 @@ public class UserService {
                 .orElseThrow(() -> new IllegalArgumentException("Usuario no encontrado: " + id));
     }
 
+    /** Recupera varios usuarios por ID (los que no existen simplemente no aparecen) */
+    public List<User> findAllByIds(Collection<Long> ids) {
+        if (ids == null || ids.isEmpty()) {
+            return List.of();
+        }
+        return userRepo.findByIdIn(ids);
+    }
+
 
 
 
@@ -22,6 +22,9 @@ import java.util.stream.Collectors;
 @Transactional
 public class OrderService {
 
+    /** IDs máximos que acepta Products en /batch */
+    private static final int PRODUCTS_BATCH_SIZE = 500;
+
     private final OrderRepository orderRepo;
     private final RestTemplate http;
     private final String productsBaseUrl;
@@ -45,13 +48,19 @@ public class OrderService {
         // valida usuario remoto
         fetchUserOrThrow(userId);
 
+        // nombre/precio de todas las líneas con una sola llamada a Products
+        List<Long> productIds = items.stream()
+                .map(m -> parseLong(m.get("productId"), "productId"))
+                .toList();
+        Map<Long, Map<String, Object>> products = fetchProducts(productIds, false);
+
         // construye la orden
         Order order = new Order();
         order.setUserId(userId);
         order.setCreatedAt(LocalDateTime.now());
 
         Set<OrderItem> orderItems = items.stream()
-                .map(this::toOrderItem)
+                .map(m -> toOrderItem(m, products))
                 .peek(oi -> oi.setOrder(order))
                 .collect(Collectors.toSet());
 
@@ -59,34 +68,23 @@ public class OrderService {
 
         Order saved = orderRepo.save(order);
 
-        // Ajuste de stock con compensación
-        List<OrderItem> adjusted = new ArrayList<>();
-        try {
-            for (OrderItem it : saved.getItems()) {
-                adjustStock(it.getProductId(), -it.getQuantity());
-                adjusted.add(it);
-            }
-        } catch (RuntimeException ex) {
-            for (OrderItem it : adjusted) {
-                try { adjustStock(it.getProductId(), +it.getQuantity()); } catch (RuntimeException ignored) {}
-            }
-            throw ex;
-        }
+        // Ajuste de stock de todas las líneas en una sola llamada (todo o nada en Products)
+        adjustStock(saved.getItems(), -1);
 
         // enriquecer para la respuesta
-        attachUserAndProductsAndTotal(saved);
+        attachUserAndProductsAndTotal(List.of(saved));
         return saved;
     }
 
     public List<Order> findByUserId(Long userId) {
         List<Order> list = orderRepo.findByUserId(userId);
-        list.forEach(this::attachUserAndProductsAndTotal);
+        attachUserAndProductsAndTotal(list);
         return list;
     }
 
     public Optional<Order> findById(Long id) {
         Optional<Order> opt = orderRepo.findById(id);
-        opt.ifPresent(this::attachUserAndProductsAndTotal);
+        opt.ifPresent(o -> attachUserAndProductsAndTotal(List.of(o)));
         return opt;
     }
 
@@ -95,24 +93,25 @@ public class OrderService {
                 .orElseThrow(() -> new EntityNotFoundException("Order not found: " + id));
 
         // devolver stock
-        for (OrderItem it : order.getItems()) {
-            adjustStock(it.getProductId(), +it.getQuantity());
-        }
+        adjustStock(order.getItems(), +1);
 
         orderRepo.delete(order);
     }
 
     // -------------------- helpers --------------------
 
-    private OrderItem toOrderItem(Map<String, Object> m) {
+    private OrderItem toOrderItem(Map<String, Object> m, Map<Long, Map<String, Object>> products) {
         Long productId = parseLong(m.get("productId"), "productId");
         Integer qty = parseInt(m.get("quantity"), "quantity");
         if (qty == null || qty <= 0) {
             throw new IllegalArgumentException("quantity debe ser > 0");
         }
 
-        // Obtén nombre/precio del microservicio Products
-        Map<String, Object> prod = fetchProductOrThrow(productId);
+        // Nombre/precio tal como los devolvió Products
+        Map<String, Object> prod = products.get(productId);
+        if (prod == null) {
+            throw new EntityNotFoundException("Producto no encontrado: " + productId);
+        }
         String name = String.valueOf(prod.getOrDefault("name", "Producto " + productId));
         Double price = parseDouble(prod.get("price"), "price");
 
@@ -124,21 +123,46 @@ public class OrderService {
         return oi;
     }
 
-    private void attachUserAndProductsAndTotal(Order order) {
-        // usuario
-        try { order.setUser(fetchUserOrThrow(order.getUserId())); }
-        catch (Exception ignore) { order.setUser(null); }
+    /**
+     * Usuario, productos (con vendedor) y total de varias órdenes: una llamada
+     * a Login por usuario distinto y una sola a Products para todas las líneas.
+     */
+    private void attachUserAndProductsAndTotal(Collection<Order> orders) {
+        if (orders.isEmpty()) return;
 
-        // productos + total
-        double total = 0d;
-        if (order.getItems() != null) {
+        Set<Long> productIds = new LinkedHashSet<>();
+        for (Order order : orders) {
+            if (order.getItems() == null) continue;
             for (OrderItem it : order.getItems()) {
-                try { it.setProduct(fetchProductOrThrow(it.getProductId())); }
-                catch (Exception ignore) { it.setProduct(null); }
-                total += it.getQuantity() * it.getUnitPrice();
+                if (it.getProductId() != null) productIds.add(it.getProductId());
             }
         }
-        order.setTotalAmount(total);
+        Map<Long, Map<String, Object>> products;
+        try { products = productIds.isEmpty() ? Map.of() : fetchProducts(productIds, true); }
+        catch (Exception ignore) { products = Map.of(); }
+
+        Map<Long, Map<String, Object>> users = new HashMap<>();
+        for (Order order : orders) {
+            // usuario
+            Long userId = order.getUserId();
+            if (!users.containsKey(userId)) {
+                Map<String, Object> user;
+                try { user = fetchUserOrThrow(userId); }
+                catch (Exception ignore) { user = null; }
+                users.put(userId, user);
+            }
+            order.setUser(users.get(userId));
+
+            // productos + total
+            double total = 0d;
+            if (order.getItems() != null) {
+                for (OrderItem it : order.getItems()) {
+                    it.setProduct(products.get(it.getProductId()));
+                    total += it.getQuantity() * it.getUnitPrice();
+                }
+            }
+            order.setTotalAmount(total);
+        }
     }
 
     private Map<String, Object> fetchUserOrThrow(Long userId) {
@@ -155,33 +179,52 @@ public class OrderService {
         return body;
     }
 
-    private Map<String, Object> fetchProductOrThrow(Long productId) {
-        String url = productsBaseUrl + "/" + productId;
-        @SuppressWarnings("unchecked")
-        Map<String, Object> body = http.getForObject(url, Map.class);
-        if (body == null || body.get("id") == null) {
-            throw new EntityNotFoundException("Producto no encontrado: " + productId);
+    /**
+     * POST /api/products/batch (en bloques de 500) -> producto por id; los que
+     * no existen no aparecen. {@code withSeller} añade el vendedor a cada uno.
+     */
+    private Map<Long, Map<String, Object>> fetchProducts(Collection<Long> productIds, boolean withSeller) {
+        List<Long> ids = new ArrayList<>(new LinkedHashSet<>(productIds));
+        String url = productsBaseUrl + "/batch" + (withSeller ? "?include=seller" : "");
+        Map<Long, Map<String, Object>> byId = new HashMap<>();
+        for (int i = 0; i < ids.size(); i += PRODUCTS_BATCH_SIZE) {
+            List<Long> chunk = ids.subList(i, Math.min(i + PRODUCTS_BATCH_SIZE, ids.size()));
+            @SuppressWarnings("unchecked")
+            List<Map<String, Object>> body = http.postForObject(url, chunk, List.class);
+            if (body == null) continue;
+            for (Map<String, Object> p : body) {
+                Object id = p.get("id");
+                if (id instanceof Number n) byId.put(n.longValue(), p);
+            }
         }
-        return body;
+        return byId;
     }
 
-    /** PATCH /api/products/{id}/stock?delta=±N */
-    private void adjustStock(Long productId, int delta) {
-        String url = productsBaseUrl + "/" + productId + "/stock?delta=" + delta;
+    /**
+     * POST /api/products/stock/adjustments con una línea por ítem
+     * ({@code sign} = -1 reserva, +1 devuelve). Products lo aplica en una
+     * única transacción: si falla, no se ha tocado el stock de ningún producto.
+     */
+    private void adjustStock(Collection<OrderItem> items, int sign) {
+        if (items == null || items.isEmpty()) return;
+        List<Map<String, Object>> lines = items.stream()
+                .map(it -> Map.<String, Object>of(
+                        "productId", it.getProductId(),
+                        "delta", sign * it.getQuantity()))
+                .toList();
+        String url = productsBaseUrl + "/stock/adjustments";
         try {
             ResponseEntity<Void> resp =
-                    http.exchange(url, HttpMethod.PATCH, HttpEntity.EMPTY, Void.class);
+                    http.exchange(url, HttpMethod.POST, new HttpEntity<>(lines), Void.class);
             if (!resp.getStatusCode().is2xxSuccessful()) {
                 throw new IllegalStateException("Ajuste de stock no exitoso: " + resp.getStatusCode());
             }
         } catch (RestClientResponseException e) {
             String body = e.getResponseBodyAsString();
             throw new IllegalStateException(
-                    "Error ajustando stock (prod " + productId + ", delta " + delta + "): " +
-                            e.getRawStatusCode() + " " + body, e);
+                    "Error ajustando stock: " + e.getRawStatusCode() + " " + body, e);
         } catch (Exception e) {
-            throw new IllegalStateException(
-                    "Error ajustando stock (prod " + productId + ", delta " + delta + "): " + e.getMessage(), e);
+            throw new IllegalStateException("Error ajustando stock: " + e.getMessage(), e);
         }
     }
 
@@ -0,0 +1,33 @@
+// src/jmh/java/ecommers/microservicio/products/benchmarks/BenchmarkData.java
+package ecommers.microservicio.products.benchmarks;
+
+import ecommers.microservicio.products.model.Product;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/** Productos de prueba con valores realistas (sin BD). */
+final class BenchmarkData {
+
+    private BenchmarkData() {}
+
+    static List<Product> products(int count, int sellers, int categories) {
+        List<Product> list = new ArrayList<>(count);
+        Instant now = Instant.parse("2026-01-01T00:00:00Z");
+        for (int i = 0; i < count; i++) {
+            Product p = new Product();
+            p.setId(100_000L - i);
+            p.setName("Camiseta de algodón orgánico " + i);
+            p.setDescription("Camiseta de manga corta, 100% algodón orgánico, corte regular. Referencia " + i);
+            p.setPrice(9.95 + i % 50);
+            p.setStock(i % 120);
+            p.setSellerId((long) (i % sellers) + 1);
+            p.setCategoryId((long) (i % categories) + 1);
+            p.setImageUrl("ab/cd/" + "0123456789abcdef".repeat(4) + ".jpg");
+            p.setCreatedAt(now);
+            list.add(p);
+        }
+        return list;
+    }
+}
@@ -0,0 +1,94 @@
+// src/jmh/java/ecommers/microservicio/products/benchmarks/EnrichmentBenchmark.java
+package ecommers.microservicio.products.benchmarks;
+
+import ecommers.microservicio.products.model.Product;
+import ecommers.microservicio.products.service.CategoryCatalog;
+import ecommers.microservicio.products.service.ProductEnricher;
+import ecommers.microservicio.products.service.SellerDirectory;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Enriquecimiento de una página de listado (ProductEnricher.attachAll, lo que
+ * hacen getProducts y el resto de listados tras leer la página): vendedores
+ * de Login vía SellerDirectory y categorías del catálogo local.
+ *
+ * Login/Categories se sustituyen por {@link StubRestTemplate} con
+ * {@code latencyMs} de latencia. {@link #warmCache} mide el camino habitual,
+ * sin red. {@link #coldCache} enriquece {@link #COLD_PAGES} páginas con
+ * vendedores distintos tras un único invalidateAll, así todos los vendedores
+ * de cada página se piden a Login sin un {@code Level.Invocation} por página
+ * (poco fiable a escala de microsegundos); el invalidateAll queda dentro de
+ * la medida, repartido entre las páginas.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EnrichmentBenchmark {
+
+    @Param({"0", "5", "20"})
+    public long latencyMs;
+
+    @Param({"20", "100"})
+    public int pageSize;
+
+    /** Vendedores distintos en la página */
+    @Param({"10"})
+    public int distinctSellers;
+
+    /** Páginas por invocación de {@link #coldCache} */
+    static final int COLD_PAGES = 16;
+
+    SellerDirectory sellers;
+    ProductEnricher enricher;
+    List<Product> rows;
+    /** Páginas como rows, cada una con sus propios vendedores */
+    List<List<Product>> coldPages;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        StubRestTemplate http = new StubRestTemplate(latencyMs, 10);
+        sellers = new SellerDirectory(http, "http://login.stub/api", 2000, 300_000, 60_000, 100, 1500);
+        CategoryCatalog categories = new CategoryCatalog(http, "http://categories.stub/api", 5000);
+        categories.refresh();
+
+        enricher = new ProductEnricher(sellers, categories);
+        rows = BenchmarkData.products(pageSize, distinctSellers, 10);
+        coldPages = new ArrayList<>(COLD_PAGES);
+        for (int page = 0; page < COLD_PAGES; page++) {
+            List<Product> products = BenchmarkData.products(pageSize, distinctSellers, 10);
+            for (Product p : products) {
+                p.setSellerId(p.getSellerId() + (long) page * distinctSellers);
+            }
+            coldPages.add(products);
+        }
+    }
+
+    @Benchmark
+    public List<Product> warmCache() {
+        enricher.attachAll(rows);
+        return rows;
+    }
+
+    /**
+     * Calentamiento más largo: con latencyMs=0 el reparto en hilos virtuales
+     * tarda unos 10 s en estabilizarse y con 3 iteraciones el error superaba
+     * al propio valor.
+     */
+    @Benchmark
+    @Warmup(iterations = 12, time = 1)
+    @OperationsPerInvocation(COLD_PAGES)
+    public List<List<Product>> coldCache() {
+        sellers.invalidateAll();
+        for (List<Product> page : coldPages) {
+            enricher.attachAll(page);
+        }
+        return coldPages;
+    }
+}
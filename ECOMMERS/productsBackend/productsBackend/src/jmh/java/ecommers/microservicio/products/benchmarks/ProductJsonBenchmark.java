@@ -0,0 +1,60 @@
+// src/jmh/java/ecommers/microservicio/products/benchmarks/ProductJsonBenchmark.java
+package ecommers.microservicio.products.benchmarks;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import ecommers.microservicio.products.model.Product;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serialización JSON de Product con el ObjectMapper que usa Spring MVC
+ * (módulos de java.time, fechas ISO), con y sin los mapas seller/category
+ * adjuntos: uno suelto (detalle) y una página de listado.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ProductJsonBenchmark {
+
+    @Param({"false", "true"})
+    public boolean enriched;
+
+    @Param({"20"})
+    public int pageSize;
+
+    ObjectMapper mapper;
+    Product product;
+    List<Product> page;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        mapper = Jackson2ObjectMapperBuilder.json().build();
+        page = BenchmarkData.products(pageSize, 10, 10);
+        if (enriched) {
+            for (Product p : page) {
+                p.setSeller(StubRestTemplate.user(p.getSellerId()));
+                p.setCategory(Map.of("id", p.getCategoryId(), "name", "Categoría " + p.getCategoryId(),
+                        "description", "Descripción de la categoría " + p.getCategoryId()));
+            }
+        }
+        product = page.get(0);
+    }
+
+    @Benchmark
+    public byte[] single() throws JsonProcessingException {
+        return mapper.writeValueAsBytes(product);
+    }
+
+    @Benchmark
+    public byte[] page() throws JsonProcessingException {
+        return mapper.writeValueAsBytes(page);
+    }
+}
@@ -0,0 +1,32 @@
+// src/jmh/java/ecommers/microservicio/products/benchmarks/SearchQueryBenchmark.java
+package ecommers.microservicio.products.benchmarks;
+
+import ecommers.microservicio.products.service.SearchQueryBuilder;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * SearchQueryBuilder.toTsQuery con textos típicos: una palabra, una frase
+ * larga con acentos y una con operadores de tsquery que hay que descartar.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SearchQueryBenchmark {
+
+    @Param({
+            "zapatos",
+            "Camiseta de algodón orgánico talla XL azul marino manga corta",
+            "a & b | !c :* (d) <-> 'e'"
+    })
+    public String text;
+
+    @Benchmark
+    public String toTsQuery() {
+        return SearchQueryBuilder.toTsQuery(text);
+    }
+}
@@ -0,0 +1,73 @@
+// src/jmh/java/ecommers/microservicio/products/benchmarks/StubRestTemplate.java
+package ecommers.microservicio.products.benchmarks;
+
+import org.springframework.web.client.RestTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * RestTemplate sin red para los benchmarks: responde como Login
+ * (/user/batch, /user/{id}) y Categories (/categories) tras esperar
+ * {@code latencyMs}, igual que lo haría un servicio remoto lento.
+ */
+class StubRestTemplate extends RestTemplate {
+
+    private static final Pattern BATCH_ID = Pattern.compile("[?&]ids=(\\d+)");
+    private static final Pattern USER_ID = Pattern.compile("/user/(\\d+)$");
+
+    private final long latencyMs;
+    private final int categories;
+    final LongAdder calls = new LongAdder();
+
+    StubRestTemplate(long latencyMs, int categories) {
+        this.latencyMs = latencyMs;
+        this.categories = categories;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T getForObject(String url, Class<T> responseType, Object... uriVariables) {
+        calls.increment();
+        if (latencyMs > 0) {
+            try {
+                TimeUnit.MILLISECONDS.sleep(latencyMs);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (url.contains("/user/batch")) {
+            List<Map<String, Object>> users = new ArrayList<>();
+            Matcher m = BATCH_ID.matcher(url);
+            while (m.find()) {
+                users.add(user(Long.parseLong(m.group(1))));
+            }
+            return (T) users;
+        }
+        Matcher single = USER_ID.matcher(url);
+        if (single.find()) {
+            return (T) user(Long.parseLong(single.group(1)));
+        }
+        if (url.endsWith("/categories")) {
+            List<Map<String, Object>> all = new ArrayList<>();
+            for (long id = 1; id <= categories; id++) {
+                all.add(Map.of("id", id, "name", "Categoría " + id, "description", "Descripción de la categoría " + id));
+            }
+            return (T) all;
+        }
+        throw new IllegalArgumentException("URL no simulada: " + url);
+    }
+
+    static Map<String, Object> user(long id) {
+        return Map.of(
+                "id", id,
+                "username", "vendedor" + id,
+                "email", "vendedor" + id + "@example.com",
+                "roles", List.of("ROLE_SELLER"));
+    }
+}
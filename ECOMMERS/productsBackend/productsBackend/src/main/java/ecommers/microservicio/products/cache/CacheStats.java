@@ -0,0 +1,20 @@
+// src/main/java/ecommers/microservicio/products/cache/CacheStats.java
+package ecommers.microservicio.products.cache;
+
+/** Contadores de una {@link ExpiringCache} (se serializa tal cual a JSON). */
+public record CacheStats(
+        long hits,
+        long negativeHits,
+        long misses,
+        long evictions,
+        long expirations,
+        long coalescedLoads,   // misses que esperaron la carga de otro hilo en vez de repetirla
+        int size,
+        int maxSize
+) {
+    /** Aciertos (positivos + negativos) sobre el total de consultas. */
+    public double hitRate() {
+        long total = hits + negativeHits + misses;
+        return total == 0 ? 0d : (double) (hits + negativeHits) / total;
+    }
+}
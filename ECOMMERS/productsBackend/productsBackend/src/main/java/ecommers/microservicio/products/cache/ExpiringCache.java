@@ -0,0 +1,234 @@
+// src/main/java/ecommers/microservicio/products/cache/ExpiringCache.java
+package ecommers.microservicio.products.cache;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Caché en memoria acotada (LRU) con TTL y caché negativa.
+ *
+ * - Un valor {@code null} devuelto por el loader se guarda como "no existe"
+ *   durante {@code negativeTtlMs}, para no repetir llamadas por IDs borrados.
+ * - Al superar {@code maxSize} se expulsa la entrada menos usada.
+ * - Los contadores permiten dimensionarla ({@link #stats()}).
+ * - {@link #get} agrupa las cargas concurrentes de una misma clave: si una
+ *   entrada muy pedida caduca, solo un hilo llama al loader y el resto espera
+ *   su resultado (sin estampida contra la BD o el servicio remoto).
+ * - Una carga ({@link #get} o {@link #getAll}) que coincide con un
+ *   {@link #invalidate} devuelve su valor pero no lo guarda, para no volver a
+ *   meter en caché un dato ya obsoleto. La comprobación y el guardado van
+ *   bajo el mismo cerrojo que la invalidación, así no se cuela entre ambos.
+ */
+public class ExpiringCache<K, V> {
+
+    private record Entry<V>(V value, long expiresAtNanos) {
+        boolean isExpired(long now) { return now - expiresAtNanos >= 0; }
+    }
+
+    private final int maxSize;
+    private final long ttlNanos;
+    private final long negativeTtlNanos;
+
+    /** Orden de acceso -> el primero es el menos usado recientemente */
+    private final LinkedHashMap<K, Entry<V>> map;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder negativeHits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+    private final LongAdder coalescedLoads = new LongAdder();
+
+    /** Cargas en curso por clave (single-flight) */
+    private final ConcurrentHashMap<K, CompletableFuture<V>> loading = new ConcurrentHashMap<>();
+
+    /** Sube en cada invalidación; una carga solo se guarda si no cambió mientras duraba */
+    private final AtomicLong invalidations = new AtomicLong();
+
+    public ExpiringCache(int maxSize, long ttlMs, long negativeTtlMs) {
+        if (maxSize <= 0) throw new IllegalArgumentException("maxSize debe ser > 0");
+        this.maxSize = maxSize;
+        this.ttlNanos = ttlMs * 1_000_000L;
+        this.negativeTtlNanos = negativeTtlMs * 1_000_000L;
+        this.map = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+                if (size() > ExpiringCache.this.maxSize) {
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Valor de la clave, cargándolo con {@code loader} si no está o caducó.
+     * Devuelve null si la clave no existe (resultado negativo, también cacheado).
+     * Si el loader lanza excepción no se cachea nada.
+     */
+    public V get(K key, Function<K, V> loader) {
+        Entry<V> e = lookup(key);
+        if (e != null) {
+            return e.value();
+        }
+
+        CompletableFuture<V> mine = new CompletableFuture<>();
+        CompletableFuture<V> inFlight = loading.putIfAbsent(key, mine);
+        if (inFlight != null) {
+            coalescedLoads.increment();
+            return await(inFlight);
+        }
+        try {
+            long generation = invalidations.get();
+            V value = loader.apply(key);
+            putIfGeneration(key, value, generation);
+            mine.complete(value);
+            return value;
+        } catch (RuntimeException | Error ex) {
+            mine.completeExceptionally(ex);
+            throw ex;
+        } finally {
+            loading.remove(key, mine);
+        }
+    }
+
+    /** Espera la carga de otro hilo; si falló, relanza su misma excepción. */
+    private static <V> V await(CompletableFuture<V> f) {
+        try {
+            return f.join();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException re) throw re;
+            if (ex.getCause() instanceof Error err) throw err;
+            throw ex;
+        }
+    }
+
+    /**
+     * Valores de varias claves; las que faltan se piden juntas a {@code bulkLoader}.
+     *
+     * El loader devuelve un mapa donde:
+     *   clave -> valor : encontrado,
+     *   clave -> null  : no existe (se cachea como negativo),
+     *   clave ausente  : desconocido (p.ej. fallo remoto), no se cachea.
+     *
+     * El resultado solo contiene las claves con valor no nulo.
+     */
+    public Map<K, V> getAll(Collection<K> keys, Function<Set<K>, Map<K, V>> bulkLoader) {
+        Map<K, V> result = getAllKnown(keys, bulkLoader);
+        result.values().removeIf(Objects::isNull);
+        return result;
+    }
+
+    /**
+     * Como {@link #getAll}, pero el resultado incluye también las claves que no
+     * existen (con valor null). Las que no se pudieron resolver no aparecen:
+     * así quien llama distingue "no existe" de "no se sabe".
+     */
+    public Map<K, V> getAllKnown(Collection<K> keys, Function<Set<K>, Map<K, V>> bulkLoader) {
+        Map<K, V> result = new HashMap<>();
+        Set<K> missing = new LinkedHashSet<>();
+        for (K key : keys) {
+            Entry<V> e = lookup(key);
+            if (e == null) {
+                missing.add(key);
+            } else {
+                result.put(key, e.value());
+            }
+        }
+        if (missing.isEmpty()) {
+            return result;
+        }
+
+        // Como en get: si hubo una invalidación durante la carga, se devuelve
+        // lo cargado pero no se guarda
+        long generation = invalidations.get();
+        Map<K, V> loaded = bulkLoader.apply(missing);
+        for (Map.Entry<K, V> l : loaded.entrySet()) {
+            if (!missing.contains(l.getKey())) continue;
+            putIfGeneration(l.getKey(), l.getValue(), generation);
+            result.put(l.getKey(), l.getValue());
+        }
+        return result;
+    }
+
+    /** Guarda un valor (null = negativo). */
+    public void put(K key, V value) {
+        Entry<V> e = entry(value);
+        if (e == null) return;
+        synchronized (map) {
+            map.put(key, e);
+        }
+    }
+
+    /** Guarda un valor cargado solo si no ha habido invalidaciones desde {@code generation}. */
+    private void putIfGeneration(K key, V value, long generation) {
+        Entry<V> e = entry(value);
+        if (e == null) return;
+        synchronized (map) {
+            if (invalidations.get() == generation) {
+                map.put(key, e);
+            }
+        }
+    }
+
+    /** Entrada con su caducidad o null si ese tipo de valor no se cachea (TTL 0). */
+    private Entry<V> entry(V value) {
+        long ttl = value == null ? negativeTtlNanos : ttlNanos;
+        return ttl <= 0 ? null : new Entry<>(value, System.nanoTime() + ttl);
+    }
+
+    public void invalidate(K key) {
+        synchronized (map) {
+            invalidations.incrementAndGet();
+            map.remove(key);
+        }
+    }
+
+    public void invalidateAll() {
+        synchronized (map) {
+            invalidations.incrementAndGet();
+            map.clear();
+        }
+    }
+
+    public int size() {
+        synchronized (map) {
+            return map.size();
+        }
+    }
+
+    public CacheStats stats() {
+        return new CacheStats(
+                hits.sum(), negativeHits.sum(), misses.sum(),
+                evictions.sum(), expirations.sum(), coalescedLoads.sum(), size(), maxSize
+        );
+    }
+
+    /** Entrada vigente o null (miss). Actualiza contadores. */
+    private Entry<V> lookup(K key) {
+        long now = System.nanoTime();
+        Entry<V> e;
+        synchronized (map) {
+            e = map.get(key);
+            if (e != null && e.isExpired(now)) {
+                map.remove(key);
+                expirations.increment();
+                e = null;
+            }
+        }
+        if (e == null) {
+            misses.increment();
+        } else if (e.value() == null) {
+            negativeHits.increment();
+        } else {
+            hits.increment();
+        }
+        return e;
+    }
+}
@@ -1,7 +1,13 @@
 package ecommers.microservicio.products.config;
 
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
 import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
 import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
@@ -10,9 +16,29 @@ import org.springframework.web.client.RestTemplate;
 @Configuration
 public class RestTemplateConfig {
 
+  /**
+   * Pool de conexiones dimensionado para el enriquecimiento concurrente
+   * (el cliente por defecto solo permite 5 conexiones por host).
+   */
   @Bean
-  public RestTemplate restTemplate() {
-    CloseableHttpClient httpClient = HttpClients.createDefault();
+  public RestTemplate restTemplate(
+      @Value("${http.client.max-total:200}") int maxTotal,
+      @Value("${http.client.max-per-route:50}") int maxPerRoute,
+      @Value("${http.client.connect-timeout-ms:2000}") long connectTimeoutMs,
+      @Value("${http.client.response-timeout-ms:5000}") long responseTimeoutMs) {
+    PoolingHttpClientConnectionManager pool = PoolingHttpClientConnectionManagerBuilder.create()
+        .setMaxConnTotal(maxTotal)
+        .setMaxConnPerRoute(maxPerRoute)
+        .setDefaultConnectionConfig(ConnectionConfig.custom()
+            .setConnectTimeout(Timeout.ofMilliseconds(connectTimeoutMs))
+            .build())
+        .build();
+    CloseableHttpClient httpClient = HttpClients.custom()
+        .setConnectionManager(pool)
+        .setDefaultRequestConfig(RequestConfig.custom()
+            .setResponseTimeout(Timeout.ofMilliseconds(responseTimeoutMs))
+            .build())
+        .build();
     HttpComponentsClientHttpRequestFactory factory =
         new HttpComponentsClientHttpRequestFactory(httpClient);
     return new RestTemplate(factory);
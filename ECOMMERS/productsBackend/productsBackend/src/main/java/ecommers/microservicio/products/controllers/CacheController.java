@@ -0,0 +1,65 @@
+// src/main/java/ecommers/microservicio/products/controllers/CacheController.java
+package ecommers.microservicio.products.controllers;
+
+import ecommers.microservicio.products.cache.CacheStats;
+import ecommers.microservicio.products.service.ProductCache;
+import ecommers.microservicio.products.service.SellerDirectory;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * Estadísticas e invalidación de las cachés locales del microservicio.
+ */
+@RestController
+@RequestMapping("/api/products/cache")
+@CrossOrigin("*")
+public class CacheController {
+
+    private final SellerDirectory sellers;
+    private final ProductCache products;
+
+    public CacheController(SellerDirectory sellers, ProductCache products) {
+        this.sellers = sellers;
+        this.products = products;
+    }
+
+    /** GET /api/products/cache/sellers  (hits, misses, evictions...) */
+    @GetMapping("/sellers")
+    public CacheStats sellersStats() {
+        return sellers.stats();
+    }
+
+    /** DELETE /api/products/cache/sellers/{sellerId}  (p.ej. tras cambiar sus roles) */
+    @DeleteMapping("/sellers/{sellerId}")
+    public ResponseEntity<Void> invalidateSeller(@PathVariable Long sellerId) {
+        sellers.invalidate(sellerId);
+        return ResponseEntity.noContent().build();
+    }
+
+    /** DELETE /api/products/cache/sellers  (vacía la caché entera) */
+    @DeleteMapping("/sellers")
+    public ResponseEntity<Void> invalidateAllSellers() {
+        sellers.invalidateAll();
+        return ResponseEntity.noContent().build();
+    }
+
+    /** GET /api/products/cache/products  (hitRate, coalescedLoads...) */
+    @GetMapping("/products")
+    public CacheStats productsStats() {
+        return products.stats();
+    }
+
+    /** DELETE /api/products/cache/products/{id}  (p.ej. tras tocar la fila a mano en la BD) */
+    @DeleteMapping("/products/{id}")
+    public ResponseEntity<Void> invalidateProduct(@PathVariable Long id) {
+        products.evictAfterCommit(id);
+        return ResponseEntity.noContent().build();
+    }
+
+    /** DELETE /api/products/cache/products  (vacía la caché entera) */
+    @DeleteMapping("/products")
+    public ResponseEntity<Void> invalidateAllProducts() {
+        products.invalidateAll();
+        return ResponseEntity.noContent().build();
+    }
+}
@@ -0,0 +1,191 @@
+// src/main/java/ecommers/microservicio/products/controllers/ImageController.java
+package ecommers.microservicio.products.controllers;
+
+import ecommers.microservicio.products.storage.ImageStore;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * GET /uploads/{ruta}: imágenes de producto (originales y variantes).
+ *
+ * Sustituye al handler estático por defecto. Como cada ruta es única por
+ * contenido (o por subida, en las antiguas), la respuesta es inmutable:
+ * <ul>
+ *   <li>ETag sacado del nombre. Si la ruta es el hash del contenido, un
+ *       If-None-Match con ese mismo ETag responde 304 sin tocar el disco; el
+ *       resto (nombres antiguos, "*") solo si el fichero existe;</li>
+ *   <li>Cache-Control: public, max-age=1 año, immutable;</li>
+ *   <li>Range de un solo tramo (bytes=a-b, a-, -n) con 206/416, e If-Range;</li>
+ *   <li>el cuerpo lo envía Tomcat con sendfile si el conector lo soporta, y si
+ *       no FileChannel.transferTo, sin pasar por buffers del heap.</li>
+ * </ul>
+ */
+@RestController
+@CrossOrigin("*")
+public class ImageController {
+
+    private static final String CACHE_CONTROL = "public, max-age=31536000, immutable";
+
+    // Atributos de petición con los que Tomcat hace el envío por sendfile
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    private final ImageStore images;
+
+    public ImageController(ImageStore images) {
+        this.images = images;
+    }
+
+    @RequestMapping(value = "/uploads/{*path}", method = {RequestMethod.GET, RequestMethod.HEAD})
+    public void serve(@PathVariable String path,
+                      HttpServletRequest request,
+                      HttpServletResponse response) throws IOException {
+        String relative = path.startsWith("/") ? path.substring(1) : path;
+        if (relative.isEmpty() || relative.startsWith(".")) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+
+        String etag = ImageStore.etagOf(relative);
+        String ifNoneMatch = request.getHeader(HttpHeaders.IF_NONE_MATCH);
+        if (ImageStore.isHashNamed(relative) && matches(ifNoneMatch, etag, false)) {
+            notModified(response, etag);
+            return;
+        }
+
+        Path file;
+        long size;
+        try {
+            file = images.resolve(relative);
+            size = Files.size(file);
+        } catch (IllegalArgumentException | NoSuchFileException ex) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        if (!Files.isRegularFile(file)) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+
+        if (matches(ifNoneMatch, etag, true)) {
+            notModified(response, etag);
+            return;
+        }
+        response.setHeader(HttpHeaders.ETAG, etag);
+        response.setHeader(HttpHeaders.CACHE_CONTROL, CACHE_CONTROL);
+
+        response.setContentType(MediaTypeFactory.getMediaType(file.getFileName().toString())
+                .orElse(MediaType.APPLICATION_OCTET_STREAM).toString());
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+
+        long start = 0;
+        long end = size; // exclusivo
+        String range = request.getHeader(HttpHeaders.RANGE);
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (range != null && (ifRange == null || ifRange.trim().equals(etag))) {
+            long[] r = parseRange(range, size);
+            if (r == null) {
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + size);
+                response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                return;
+            }
+            if (r.length == 2) {
+                start = r[0];
+                end = r[1];
+                response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+                response.setHeader(HttpHeaders.CONTENT_RANGE,
+                        "bytes " + start + "-" + (end - 1) + "/" + size);
+            }
+        }
+        long length = end - start;
+        response.setContentLengthLong(length);
+
+        if ("HEAD".equals(request.getMethod()) || length == 0) {
+            return;
+        }
+
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            request.setAttribute(SENDFILE_FILENAME, file.toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, end);
+            return;
+        }
+
+        try (FileChannel in = FileChannel.open(file, StandardOpenOption.READ)) {
+            WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+            long pos = start;
+            while (pos < end) {
+                long sent = in.transferTo(pos, end - pos, out);
+                if (sent <= 0) break;
+                pos += sent;
+            }
+        }
+    }
+
+    private static void notModified(HttpServletResponse response, String etag) {
+        response.setHeader(HttpHeaders.ETAG, etag);
+        response.setHeader(HttpHeaders.CACHE_CONTROL, CACHE_CONTROL);
+        response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+    }
+
+    /**
+     * If-None-Match: "*" o lista de ETags (se aceptan débiles W/"...").
+     * "*" solo cuenta con {@code wildcard}: hay que saber antes que el fichero existe.
+     */
+    private static boolean matches(String ifNoneMatch, String etag, boolean wildcard) {
+        if (ifNoneMatch == null) return false;
+        for (String candidate : ifNoneMatch.split(",")) {
+            String c = candidate.trim();
+            if (c.startsWith("W/")) c = c.substring(2);
+            if ((wildcard && c.equals("*")) || c.equals(etag)) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Un solo tramo "bytes=a-b" / "a-" / "-n" -> {inicio, fin exclusivo};
+     * array vacío = ignorar el Range (varios tramos o sintaxis desconocida:
+     * se responde entero); null = no satisfacible (416).
+     */
+    static long[] parseRange(String header, long size) {
+        String h = header.trim();
+        if (!h.startsWith("bytes=") || h.indexOf(',') >= 0) {
+            return new long[0];
+        }
+        String spec = h.substring("bytes=".length()).trim();
+        int dash = spec.indexOf('-');
+        if (dash < 0) return new long[0];
+        try {
+            String a = spec.substring(0, dash).trim();
+            String b = spec.substring(dash + 1).trim();
+            if (a.isEmpty()) {
+                if (b.isEmpty()) return new long[0];
+                long suffix = Long.parseLong(b);
+                if (suffix <= 0 || size == 0) return null;
+                return new long[]{Math.max(0, size - suffix), size};
+            }
+            long first = Long.parseLong(a);
+            long last = b.isEmpty() ? Long.MAX_VALUE : Long.parseLong(b);
+            if (last < first) return new long[0];
+            if (first >= size) return null;
+            return new long[]{first, Math.min(last, size - 1) + 1};
+        } catch (NumberFormatException ex) {
+            return new long[0];
+        }
+    }
+}
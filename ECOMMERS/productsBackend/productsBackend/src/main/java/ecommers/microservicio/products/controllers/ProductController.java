@@ -1,7 +1,22 @@
 // src/main/java/ecommers/microservicio/products/controllers/ProductController.java
 package ecommers.microservicio.products.controllers;
 
+import ecommers.microservicio.products.dto.BulkProductUpdate;
+import ecommers.microservicio.products.dto.CursorPage;
+import ecommers.microservicio.products.dto.FilteredPage;
+import ecommers.microservicio.products.dto.ProductFilter;
+import ecommers.microservicio.products.dto.ProductRef;
+import ecommers.microservicio.products.dto.ProductSnapshot;
+import ecommers.microservicio.products.dto.ImportReport;
+import ecommers.microservicio.products.dto.ProductSummary;
+import ecommers.microservicio.products.dto.SlicePage;
+import ecommers.microservicio.products.dto.StockAdjustment;
+import ecommers.microservicio.products.dto.StockLevel;
 import ecommers.microservicio.products.model.Product;
+import ecommers.microservicio.products.service.CategoryCatalog;
+import ecommers.microservicio.products.service.ProductBulkEditor;
+import ecommers.microservicio.products.service.ProductExporter;
+import ecommers.microservicio.products.service.ProductImporter;
 import ecommers.microservicio.products.service.ProductService;
 import jakarta.persistence.EntityNotFoundException;
 import org.springdoc.core.annotations.ParameterObject;
@@ -9,10 +24,15 @@ import org.springframework.data.domain.*;
 import org.springframework.data.web.PageableDefault;
 import org.springframework.http.*;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/products")
@@ -20,37 +40,163 @@ import java.io.IOException;
 public class ProductController {
 
     private final ProductService productSvc;
+    private final CategoryCatalog categoryCatalog;
+    private final ProductImporter importer;
+    private final ProductExporter exporter;
+    private final ProductBulkEditor bulkEditor;
 
-    public ProductController(ProductService productSvc) {
+    public ProductController(ProductService productSvc,
+                             CategoryCatalog categoryCatalog,
+                             ProductImporter importer,
+                             ProductExporter exporter,
+                             ProductBulkEditor bulkEditor) {
         this.productSvc = productSvc;
+        this.categoryCatalog = categoryCatalog;
+        this.importer = importer;
+        this.exporter = exporter;
+        this.bulkEditor = bulkEditor;
     }
 
     /**
      * GET /api/products
      *   pageable se rellena con page, size, sort... automáticamente.
-     *   Por defecto size=10.
+     *   Por defecto size=10. Lleva ETag (ids + versiones de la página): con
+     *   If-None-Match responde 304.
      */
     @GetMapping
-    public Page<Product> listarProductos(
+    public ResponseEntity<Page<Product>> listarProductos(
             @ParameterObject
             @PageableDefault(size = 10, sort = "id", direction = Sort.Direction.ASC)
-            Pageable pageable
+            Pageable pageable,
+            WebRequest request
     ) {
-        return productSvc.getProducts(pageable);
+        ProductService.Listing listing = productSvc.listing(pageable);
+        if (request.checkNotModified(listing.etag())) {
+            return null; // 304 sin cargar ni enriquecer la página
+        }
+        return revalidate(listing.etag(), productSvc.load(listing));
     }
 
     /**
      * GET /api/products/by-category
-     *   Listado paginado filtrado por categoría (query param).
+     *   Listado paginado filtrado por categoría (query param). Con ETag, como el listado general.
      */
     @GetMapping("/by-category")
-    public Page<Product> listarPorCategoria(
+    public ResponseEntity<Page<Product>> listarPorCategoria(
             @RequestParam Long categoryId,
             @ParameterObject
             @PageableDefault(size = 10, sort = "id", direction = Sort.Direction.ASC)
+            Pageable pageable,
+            WebRequest request
+    ) {
+        ProductService.Listing listing = productSvc.categoryListing(categoryId, pageable);
+        if (request.checkNotModified(listing.etag())) {
+            return null;
+        }
+        return revalidate(listing.etag(), productSvc.load(listing));
+    }
+
+    /**
+     * GET /api/products/batch?ids=1,2,3[&include=seller]
+     *   Varios productos en una consulta (carritos y pedidos), en el orden
+     *   pedido; los que no existen se omiten. Hasta 500 ids.
+     */
+    @GetMapping("/batch")
+    public List<ProductRef> obtenerLote(
+            @RequestParam List<Long> ids,
+            @RequestParam(required = false) String include
+    ) {
+        return refs(ids, include);
+    }
+
+    /** POST /api/products/batch[?include=seller]  body: [1,2,3] (para listas que no caben en la URL) */
+    @PostMapping("/batch")
+    public List<ProductRef> obtenerLotePost(
+            @RequestBody List<Long> ids,
+            @RequestParam(required = false) String include
+    ) {
+        return refs(ids, include);
+    }
+
+    private List<ProductRef> refs(List<Long> ids, String include) {
+        try {
+            return productSvc.getRefs(ids, "seller".equals(include));
+        } catch (IllegalArgumentException ex) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, ex.getMessage(), ex);
+        }
+    }
+
+    /**
+     * GET /api/products/by-seller?sellerId=..
+     *   Productos de un vendedor (pantalla "mis productos"), paginados.
+     */
+    @GetMapping("/by-seller")
+    public Page<Product> listarPorVendedor(
+            @RequestParam Long sellerId,
+            @ParameterObject
+            @PageableDefault(size = 10, sort = "id", direction = Sort.Direction.DESC)
             Pageable pageable
     ) {
-        return productSvc.getByCategory(categoryId, pageable);
+        return productSvc.getBySeller(sellerId, pageable);
+    }
+
+    // ----------------- vistas reducidas -----------------
+    //
+    //   ?view=summary        -> ProductSummary (id, name, price, stock, imágenes)
+    //   ?fields=id,name,...  -> solo esos campos; seller/category solo si se piden
+    //
+    // En ambos casos la consulta selecciona únicamente esas columnas.
+
+    /** GET /api/products?view=summary */
+    @GetMapping(params = "view=summary")
+    public Page<ProductSummary> listarResumen(
+            @ParameterObject
+            @PageableDefault(size = 10, sort = "id", direction = Sort.Direction.ASC)
+            Pageable pageable
+    ) {
+        return productSvc.getProductSummaries(pageable);
+    }
+
+    /** GET /api/products?fields=id,name,price,seller */
+    @GetMapping(params = {"fields", "!view"})
+    public Page<Map<String, Object>> listarCampos(
+            @RequestParam String fields,
+            @ParameterObject
+            @PageableDefault(size = 10, sort = "id", direction = Sort.Direction.ASC)
+            Pageable pageable
+    ) {
+        try {
+            return productSvc.getProductsFields(fields, pageable);
+        } catch (IllegalArgumentException ex) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, ex.getMessage(), ex);
+        }
+    }
+
+    /** GET /api/products/by-category?categoryId=..&view=summary */
+    @GetMapping(value = "/by-category", params = "view=summary")
+    public Page<ProductSummary> listarResumenPorCategoria(
+            @RequestParam Long categoryId,
+            @ParameterObject
+            @PageableDefault(size = 10, sort = "id", direction = Sort.Direction.ASC)
+            Pageable pageable
+    ) {
+        return productSvc.getSummariesByCategory(categoryId, pageable);
+    }
+
+    /** GET /api/products/by-category?categoryId=..&fields=... */
+    @GetMapping(value = "/by-category", params = {"fields", "!view"})
+    public Page<Map<String, Object>> listarCamposPorCategoria(
+            @RequestParam Long categoryId,
+            @RequestParam String fields,
+            @ParameterObject
+            @PageableDefault(size = 10, sort = "id", direction = Sort.Direction.ASC)
+            Pageable pageable
+    ) {
+        try {
+            return productSvc.getByCategoryFields(categoryId, fields, pageable);
+        } catch (IllegalArgumentException ex) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, ex.getMessage(), ex);
+        }
     }
 
     /**
@@ -65,14 +211,151 @@ public class ProductController {
         return productSvc.search(q, pageable);
     }
 
+    /**
+     * GET /api/products/slice?page=...&size=...&withTotal=...
+     *   Igual que GET /api/products pero sin COUNT(*): devuelve hasNext
+     *   y, si se pide, un total aproximado cacheado.
+     */
+    @GetMapping("/slice")
+    public SlicePage<Product> listarProductosSlice(
+            @ParameterObject
+            @PageableDefault(size = 10, sort = "id", direction = Sort.Direction.ASC)
+            Pageable pageable,
+            @RequestParam(defaultValue = "false") boolean withTotal
+    ) {
+        return productSvc.sliceProducts(pageable, withTotal);
+    }
+
+    /**
+     * GET /api/products/by-category/slice?categoryId=...&withTotal=...
+     *   Listado por categoría sin COUNT(*).
+     */
+    @GetMapping("/by-category/slice")
+    public SlicePage<Product> listarPorCategoriaSlice(
+            @RequestParam Long categoryId,
+            @ParameterObject
+            @PageableDefault(size = 10, sort = "id", direction = Sort.Direction.ASC)
+            Pageable pageable,
+            @RequestParam(defaultValue = "false") boolean withTotal
+    ) {
+        return productSvc.sliceByCategory(categoryId, pageable, withTotal);
+    }
+
+    /**
+     * GET /api/products/search/slice?q=...
+     *   Búsqueda sin COUNT(*) (sin total aproximado).
+     */
+    @GetMapping("/search/slice")
+    public SlicePage<Product> buscarProductosSlice(
+            @RequestParam("q") String q,
+            @ParameterObject @PageableDefault(size = 10) Pageable pageable
+    ) {
+        return productSvc.sliceSearch(q, pageable);
+    }
+
+    /**
+     * GET /api/products/scroll?after=...&size=...
+     *   Listado por cursor (scroll infinito): más recientes primero,
+     *   sin OFFSET ni COUNT. Para la siguiente página se pasa nextCursor en after.
+     */
+    @GetMapping("/scroll")
+    public CursorPage<Product> scrollProductos(
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "10") int size
+    ) {
+        try {
+            return productSvc.scrollProducts(after, size);
+        } catch (IllegalArgumentException ex) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, ex.getMessage(), ex);
+        }
+    }
+
+    /**
+     * GET /api/products/by-category/scroll?categoryId=...&after=...&size=...
+     *   Listado por cursor filtrado por categoría.
+     */
+    @GetMapping("/by-category/scroll")
+    public CursorPage<Product> scrollPorCategoria(
+            @RequestParam Long categoryId,
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "10") int size
+    ) {
+        try {
+            return productSvc.scrollByCategory(categoryId, after, size);
+        } catch (IllegalArgumentException ex) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, ex.getMessage(), ex);
+        }
+    }
+
+    /**
+     * GET /api/products/search/scroll?q=...&after=...&size=...
+     *   Búsqueda por cursor, ordenada por relevancia.
+     */
+    @GetMapping("/search/scroll")
+    public CursorPage<Product> scrollBusqueda(
+            @RequestParam("q") String q,
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "10") int size
+    ) {
+        try {
+            return productSvc.scrollSearch(q, after, size);
+        } catch (IllegalArgumentException ex) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, ex.getMessage(), ex);
+        }
+    }
+
+    /**
+     * GET /api/products/filter?q=&categoryId=&sellerId=&minPrice=&maxPrice=&inStock=&page=&size=
+     *   Filtro combinado (todos los criterios opcionales) con total y facetas
+     *   por categoría, vendedor y tramo de precio.
+     */
+    @GetMapping("/filter")
+    public FilteredPage<Product> filtrarProductos(
+            @ParameterObject ProductFilter filter,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "10") int size
+    ) {
+        try {
+            return productSvc.filter(filter, page, size);
+        } catch (IllegalArgumentException ex) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, ex.getMessage(), ex);
+        }
+    }
+
     /**
      * GET /api/products/{id}
-     *   Obtener un producto por su ID.
+     *   Obtener un producto por su ID. Con If-None-Match de la versión actual
+     *   responde 304 sin enriquecer ni llamar a Login; la versión sale de
+     *   ProductCache (la fila completa, leída de la BD solo si no está en caché).
      */
     @GetMapping("/{id}")
-    public Product obtenerProducto(@PathVariable Long id) {
-        return productSvc.getById(id)
+    public ResponseEntity<Product> obtenerProducto(@PathVariable Long id, WebRequest request) {
+        String etag = productSvc.etagOf(id)
                 .orElseThrow(() -> new EntityNotFoundException("Producto no encontrado: " + id));
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+        Product p = productSvc.getById(id)
+                .orElseThrow(() -> new EntityNotFoundException("Producto no encontrado: " + id));
+        return revalidate(ProductService.etag(p.getId(), p.getVersion()), p);
+    }
+
+    /** GET /api/products/{id}?view=summary */
+    @GetMapping(value = "/{id}", params = "view=summary")
+    public ProductSummary obtenerResumen(@PathVariable Long id) {
+        return productSvc.getSummaryById(id)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Producto no encontrado: " + id));
+    }
+
+    /** GET /api/products/{id}?fields=... */
+    @GetMapping(value = "/{id}", params = {"fields", "!view"})
+    public Map<String, Object> obtenerCampos(@PathVariable Long id, @RequestParam String fields) {
+        try {
+            return productSvc.getByIdFields(id, fields)
+                    .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Producto no encontrado: " + id));
+        } catch (IllegalArgumentException ex) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, ex.getMessage(), ex);
+        }
     }
 
     /**
@@ -95,6 +378,48 @@ public class ProductController {
         );
     }
 
+    /**
+     * POST /api/products/import?sellerId=...
+     *   Importación masiva. El cuerpo se lee en streaming (NDJSON o CSV con
+     *   cabecera); sellerId es el vendedor por defecto de las filas que no lo
+     *   traen. Devuelve cuántas filas se importaron y los errores por línea.
+     */
+    @PostMapping(value = "/import", consumes = "application/x-ndjson")
+    public ImportReport importarNdjson(
+            @RequestParam(required = false) Long sellerId,
+            InputStream body
+    ) throws IOException {
+        return importer.importNdjson(body, sellerId);
+    }
+
+    @PostMapping(value = "/import", consumes = "text/csv")
+    public ImportReport importarCsv(
+            @RequestParam(required = false) Long sellerId,
+            InputStream body
+    ) throws IOException {
+        try {
+            return importer.importCsv(body, sellerId);
+        } catch (IllegalArgumentException ex) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, ex.getMessage(), ex);
+        }
+    }
+
+    /**
+     * GET /api/products/export?categoryId=&sellerId=
+     *   Catálogo completo (o filtrado) en NDJSON, en streaming y sin enriquecer.
+     *   Pensado para el indexador de búsqueda y los procesos nocturnos.
+     */
+    @GetMapping(value = "/export", produces = "application/x-ndjson")
+    public ResponseEntity<StreamingResponseBody> exportar(
+            @RequestParam(required = false) Long categoryId,
+            @RequestParam(required = false) Long sellerId
+    ) {
+        StreamingResponseBody body = out -> exporter.exportNdjson(categoryId, sellerId, out);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/x-ndjson"))
+                .body(body);
+    }
+
     /**
      * PUT /api/products/{id}
      *   Actualizar producto (multipart/form-data para imagen opcional).
@@ -127,7 +452,7 @@ public class ProductController {
 
     /**
      * DELETE /api/products/{id}
-     *   Eliminar producto y su imagen.
+     *   Eliminar producto (su imagen se libera; el fichero se borra si nadie más la usa).
      */
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> eliminarProducto(@PathVariable Long id) {
@@ -136,17 +461,26 @@ public class ProductController {
             return ResponseEntity.noContent().build();
         } catch (EntityNotFoundException ex) {
             throw new ResponseStatusException(HttpStatus.NOT_FOUND, ex.getMessage(), ex);
-        } catch (IOException ex) {
-            throw new ResponseStatusException(
-                    HttpStatus.INTERNAL_SERVER_ERROR,
-                    "Error al eliminar la imagen", ex
-            );
         }
     }
 
 
 
 
+    /**
+     * POST /api/products/categories/refresh
+     *   Aviso de cambio en categorías: recarga el snapshot local.
+     */
+    @PostMapping("/categories/refresh")
+    public ResponseEntity<Void> refrescarCategorias() {
+        try {
+            categoryCatalog.refresh();
+            return ResponseEntity.noContent().build();
+        } catch (IllegalStateException ex) {
+            throw new ResponseStatusException(HttpStatus.BAD_GATEWAY, ex.getMessage(), ex);
+        }
+    }
+
     /** ✅ PATCH /api/products/{id}/stock?delta=-N  (ajustar stock) */
     @PatchMapping("/{id}/stock")
     public Product ajustarStock(
@@ -162,9 +496,74 @@ public class ProductController {
         }
     }
 
+    /**
+     * POST /api/products/stock/adjustments
+     *   Ajuste de stock de varios productos (p.ej. un pedido completo) en una
+     *   sola transacción: body [{"productId":10,"delta":-2}, ...].
+     *   Si alguna línea falla no se aplica ninguna (400/404).
+     */
+    @PostMapping("/stock/adjustments")
+    public List<StockLevel> ajustarStockMultiple(@RequestBody List<StockAdjustment> adjustments) {
+        try {
+            return productSvc.adjustStockBatch(adjustments);
+        } catch (EntityNotFoundException ex) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, ex.getMessage(), ex);
+        } catch (IllegalArgumentException ex) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, ex.getMessage(), ex);
+        }
+    }
+
+    /**
+     * PATCH /api/products/bulk
+     *   Precio y/o stock de muchos productos de un vendedor en una sola
+     *   petición: body {"sellerId":7,"items":[{"id":10,"price":9.5},{"id":11,"stock":0}, ...]}.
+     *   Todo o nada: 400 si la petición no es válida, 404 si algún producto
+     *   no existe o no es de ese vendedor. Devuelve las filas actualizadas.
+     */
+    @PatchMapping("/bulk")
+    public List<ProductSnapshot> actualizarEnBloque(@RequestBody BulkProductUpdate update) {
+        try {
+            return bulkEditor.apply(update);
+        } catch (EntityNotFoundException ex) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, ex.getMessage(), ex);
+        } catch (IllegalArgumentException ex) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, ex.getMessage(), ex);
+        }
+    }
+
+    /**
+     * PATCH /api/products/{id}/stock/level?delta=-N
+     *   Ajuste atómico de stock; devuelve solo el stock resultante.
+     *   400 si no hay stock suficiente, 404 si el producto no existe.
+     */
+    @PatchMapping("/{id}/stock/level")
+    public StockLevel ajustarNivelStock(
+            @PathVariable Long id,
+            @RequestParam int delta
+    ) {
+        try {
+            return productSvc.adjustStockLevel(id, delta);
+        } catch (EntityNotFoundException ex) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, ex.getMessage(), ex);
+        } catch (IllegalArgumentException ex) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, ex.getMessage(), ex);
+        }
+    }
+
+
 
 
 
 
 
+    /**
+     * 200 con ETag y "no-cache": el navegador (y Carts/Orders) pueden guardar la
+     * respuesta pero deben revalidarla con If-None-Match en cada uso.
+     */
+    private static <T> ResponseEntity<T> revalidate(String etag, T body) {
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noCache())
+                .eTag(etag)
+                .body(body);
+    }
 }
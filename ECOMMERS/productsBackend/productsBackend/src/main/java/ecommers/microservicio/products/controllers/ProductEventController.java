@@ -0,0 +1,40 @@
+// src/main/java/ecommers/microservicio/products/controllers/ProductEventController.java
+package ecommers.microservicio.products.controllers;
+
+import ecommers.microservicio.products.dto.ProductEventFeed;
+import ecommers.microservicio.products.service.ProductEventLog;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * Feed de cambios de productos para los servicios que mantienen una réplica
+ * local (carritos, pedidos). Se consulta en bucle guardando {@code next}:
+ *
+ *   GET /api/products/events?after=0&limit=100
+ *   -> { "events": [ {position, type, productId, createdAt, payload}, ... ], "next": 57 }
+ *
+ * type: CREATED / UPDATED (payload = producto completo), STOCK_CHANGED
+ * (payload = {productId, stock}) y DELETED (sin payload).
+ */
+@RestController
+@RequestMapping("/api/products/events")
+@CrossOrigin("*")
+public class ProductEventController {
+
+    private final ProductEventLog events;
+
+    public ProductEventController(ProductEventLog events) {
+        this.events = events;
+    }
+
+    @GetMapping
+    public ProductEventFeed feed(@RequestParam(defaultValue = "0") long after,
+                                 @RequestParam(defaultValue = "100") int limit) {
+        try {
+            return events.feed(after, limit);
+        } catch (IllegalArgumentException ex) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, ex.getMessage());
+        }
+    }
+}
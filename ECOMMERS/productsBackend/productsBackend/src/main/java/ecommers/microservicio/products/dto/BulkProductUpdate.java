@@ -0,0 +1,13 @@
+// src/main/java/ecommers/microservicio/products/dto/BulkProductUpdate.java
+package ecommers.microservicio.products.dto;
+
+import java.util.List;
+
+/**
+ * Cambio de precio y/o stock de varios productos de un mismo vendedor
+ * (PATCH /api/products/bulk). En cada línea, lo que venga null no se toca.
+ */
+public record BulkProductUpdate(Long sellerId, List<Item> items) {
+
+    public record Item(Long id, Double price, Integer stock) {}
+}
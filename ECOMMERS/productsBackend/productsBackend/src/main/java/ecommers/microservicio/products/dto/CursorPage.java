@@ -0,0 +1,16 @@
+// src/main/java/ecommers/microservicio/products/dto/CursorPage.java
+package ecommers.microservicio.products.dto;
+
+import java.util.List;
+
+/**
+ * Página de un listado por cursor (scroll infinito).
+ * Para pedir la siguiente se pasa {@code nextCursor} como {@code after};
+ * es null cuando no hay más resultados. No lleva total: no se cuenta nada.
+ */
+public record CursorPage<T>(
+        List<T> content,
+        int size,
+        boolean hasNext,
+        String nextCursor
+) {}
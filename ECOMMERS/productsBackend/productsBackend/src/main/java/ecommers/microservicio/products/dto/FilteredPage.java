@@ -0,0 +1,13 @@
+// src/main/java/ecommers/microservicio/products/dto/FilteredPage.java
+package ecommers.microservicio.products.dto;
+
+import java.util.List;
+
+/** Página de GET /api/products/filter con el total y las facetas del filtro completo. */
+public record FilteredPage<T>(
+        List<T> content,
+        int number,
+        int size,
+        long totalElements,
+        ProductFacets facets
+) {}
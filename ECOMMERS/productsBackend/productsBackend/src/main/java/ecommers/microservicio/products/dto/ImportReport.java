@@ -0,0 +1,19 @@
+// src/main/java/ecommers/microservicio/products/dto/ImportReport.java
+package ecommers.microservicio.products.dto;
+
+import java.util.List;
+
+/**
+ * Resultado de una importación masiva. Las filas con error se saltan y el
+ * resto se importa; {@code errors} lista como mucho las primeras N
+ * ({@code errorsTruncated} indica que hubo más).
+ */
+public record ImportReport(
+        long imported,
+        long rejected,
+        List<RowError> errors,
+        boolean errorsTruncated
+) {
+    /** {@code line} es el número de línea en el fichero (1 = primera línea) */
+    public record RowError(long line, String message) {}
+}
@@ -0,0 +1,22 @@
+// src/main/java/ecommers/microservicio/products/dto/ProductEventFeed.java
+package ecommers.microservicio.products.dto;
+
+import com.fasterxml.jackson.annotation.JsonRawValue;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Página del feed de eventos. {@code next} es el {@code after} de la siguiente
+ * llamada (igual al recibido si no había nada nuevo).
+ */
+public record ProductEventFeed(List<Event> events, long next) {
+
+    public record Event(
+            long position,
+            String type,
+            Long productId,
+            Instant createdAt,
+            @JsonRawValue String payload
+    ) {}
+}
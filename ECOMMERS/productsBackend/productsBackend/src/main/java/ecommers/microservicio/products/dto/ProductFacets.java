@@ -0,0 +1,25 @@
+// src/main/java/ecommers/microservicio/products/dto/ProductFacets.java
+package ecommers.microservicio.products.dto;
+
+import java.util.List;
+
+/**
+ * Recuentos por categoría, vendedor y tramo de precio de los productos que
+ * cumplen el filtro (todos los criterios aplicados, también el de la propia
+ * faceta). Se omiten los grupos con 0 productos.
+ */
+public record ProductFacets(
+        List<Count> categories,
+        List<Count> sellers,
+        List<PriceBucket> prices
+) {
+    /** {@code name} puede ser null si la categoría/vendedor no se pudo resolver */
+    public record Count(Long id, String name, long count) {}
+
+    /** Tramo [from, to); from null = sin mínimo, to null = sin máximo */
+    public record PriceBucket(Double from, Double to, long count) {}
+
+    public static ProductFacets empty() {
+        return new ProductFacets(List.of(), List.of(), List.of());
+    }
+}
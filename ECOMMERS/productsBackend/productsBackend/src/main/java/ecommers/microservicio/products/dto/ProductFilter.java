@@ -0,0 +1,16 @@
+// src/main/java/ecommers/microservicio/products/dto/ProductFilter.java
+package ecommers.microservicio.products.dto;
+
+/**
+ * Criterios de GET /api/products/filter; todos opcionales y combinables (AND).
+ * {@code q} es texto libre (misma búsqueda que /search), {@code inStock=true}
+ * deja solo productos con stock &gt; 0.
+ */
+public record ProductFilter(
+        String q,
+        Long categoryId,
+        Long sellerId,
+        Double minPrice,
+        Double maxPrice,
+        Boolean inStock
+) {}
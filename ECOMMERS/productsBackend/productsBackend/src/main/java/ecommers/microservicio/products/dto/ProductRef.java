@@ -0,0 +1,32 @@
+// src/main/java/ecommers/microservicio/products/dto/ProductRef.java
+package ecommers.microservicio.products.dto;
+
+import java.util.Map;
+
+/**
+ * Producto ligero para la consulta por lotes (GET /api/products/batch) con la
+ * que Carts y Orders enriquecen un carrito o pedido entero en una llamada.
+ * Sin categoría; {@code seller} solo viene si se pidió include=seller.
+ */
+public record ProductRef(
+        Long id,
+        String name,
+        Double price,
+        Integer stock,
+        Long categoryId,
+        Long sellerId,
+        String imageUrl,
+        String thumbnailUrl,
+        long version,
+        Map<String, Object> seller
+) {
+    /** Fila tal como sale de la consulta (sin vendedor). */
+    public ProductRef(Long id, String name, Double price, Integer stock, Long categoryId, Long sellerId,
+                      String imageUrl, String thumbnailUrl, long version) {
+        this(id, name, price, stock, categoryId, sellerId, imageUrl, thumbnailUrl, version, null);
+    }
+
+    public ProductRef withSeller(Map<String, Object> seller) {
+        return new ProductRef(id, name, price, stock, categoryId, sellerId, imageUrl, thumbnailUrl, version, seller);
+    }
+}
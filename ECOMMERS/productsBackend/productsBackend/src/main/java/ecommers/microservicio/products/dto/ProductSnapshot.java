@@ -0,0 +1,32 @@
+// src/main/java/ecommers/microservicio/products/dto/ProductSnapshot.java
+package ecommers.microservicio.products.dto;
+
+import ecommers.microservicio.products.model.Product;
+
+import java.time.Instant;
+
+/**
+ * Estado persistido de un producto tras un alta o una modificación (carga de
+ * los eventos CREATED/UPDATED). Sin vendedor ni categoría adjuntos.
+ */
+public record ProductSnapshot(
+        Long id,
+        String name,
+        String description,
+        Double price,
+        Integer stock,
+        Long categoryId,
+        Long sellerId,
+        String imageUrl,
+        String thumbnailUrl,
+        String cardUrl,
+        String detailUrl,
+        long version,
+        Instant updatedAt
+) {
+    public static ProductSnapshot of(Product p) {
+        return new ProductSnapshot(p.getId(), p.getName(), p.getDescription(), p.getPrice(), p.getStock(),
+                p.getCategoryId(), p.getSellerId(), p.getImageUrl(), p.getThumbnailUrl(), p.getCardUrl(),
+                p.getDetailUrl(), p.getVersion(), p.getUpdatedAt());
+    }
+}
@@ -0,0 +1,16 @@
+// src/main/java/ecommers/microservicio/products/dto/ProductSummary.java
+package ecommers.microservicio.products.dto;
+
+/**
+ * Vista reducida de un producto (view=summary): lo que necesitan Carts y
+ * Orders. Proyección de Spring Data: la consulta solo selecciona estas
+ * columnas y no se enriquece con vendedor ni categoría.
+ */
+public record ProductSummary(
+        Long id,
+        String name,
+        Double price,
+        Integer stock,
+        String imageUrl,
+        String thumbnailUrl
+) {}
@@ -0,0 +1,17 @@
+// src/main/java/ecommers/microservicio/products/dto/SlicePage.java
+package ecommers.microservicio.products.dto;
+
+import java.util.List;
+
+/**
+ * Página sin COUNT(*): se piden size + 1 filas para saber si hay siguiente.
+ * {@code approximateTotal} solo viene si se pidió (withTotal=true) y es un
+ * valor cacheado que puede ir algo por detrás de la realidad.
+ */
+public record SlicePage<T>(
+        List<T> content,
+        int number,
+        int size,
+        boolean hasNext,
+        Long approximateTotal
+) {}
@@ -0,0 +1,5 @@
+// src/main/java/ecommers/microservicio/products/dto/StockAdjustment.java
+package ecommers.microservicio.products.dto;
+
+/** Una línea de un ajuste de stock múltiple: {"productId": 10, "delta": -2}. */
+public record StockAdjustment(Long productId, int delta) {}
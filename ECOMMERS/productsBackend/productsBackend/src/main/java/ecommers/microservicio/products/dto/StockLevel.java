@@ -0,0 +1,5 @@
+// src/main/java/ecommers/microservicio/products/dto/StockLevel.java
+package ecommers.microservicio.products.dto;
+
+/** Stock resultante de un ajuste (respuesta ligera, sin enriquecer). */
+public record StockLevel(Long productId, int stock) {}
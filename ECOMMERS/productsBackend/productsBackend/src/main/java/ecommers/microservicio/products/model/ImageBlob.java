@@ -0,0 +1,34 @@
+// src/main/java/ecommers/microservicio/products/model/ImageBlob.java
+package ecommers.microservicio.products.model;
+
+import jakarta.persistence.*;
+import java.time.Instant;
+
+/**
+ * Imagen almacenada por contenido (ver ImageStore): una fila por fichero en
+ * disco y cuántos productos la usan. Con {@code refCount = 0} el fichero es
+ * candidato a borrarse pasado el periodo de gracia.
+ */
+@Entity
+@Table(name = "image_blobs", schema = "public")
+public class ImageBlob {
+
+    /** Ruta relativa a uploads/, p.ej. "ab/cd/abcd….jpg" (es también la imageUrl) */
+    @Id
+    @Column(name = "path", length = 200)
+    private String path;
+
+    @Column(name = "ref_count", nullable = false)
+    private int refCount;
+
+    @Column(name = "size_bytes", nullable = false)
+    private long sizeBytes;
+
+    @Column(name = "updated_at", nullable = false)
+    private Instant updatedAt;
+
+    public String getPath() { return path; }
+    public int getRefCount() { return refCount; }
+    public long getSizeBytes() { return sizeBytes; }
+    public Instant getUpdatedAt() { return updatedAt; }
+}
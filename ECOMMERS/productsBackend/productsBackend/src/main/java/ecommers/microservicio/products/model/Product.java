@@ -7,7 +7,15 @@ import java.time.Instant;
 import java.util.Map; // <-- nuevo
 
 @Entity
-@Table(name = "products", schema = "public")
+@Table(name = "products", schema = "public",
+       indexes = {
+           // Listados por categoría ordenados/paginados por id (keyset)
+           @Index(name = "idx_products_category_id_id", columnList = "category_id, id"),
+           // Filtro combinado (/filter): categoría + rango de precio, vendedor, precio solo
+           @Index(name = "idx_products_category_id_price", columnList = "category_id, price"),
+           @Index(name = "idx_products_seller_id_id", columnList = "seller_id, id"), // también /by-seller
+           @Index(name = "idx_products_price_id", columnList = "price, id")
+       })
 public class Product {
 
     @Id @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -42,9 +50,34 @@ public class Product {
     @Column(name = "image_url")
     private String imageUrl;
 
+    /**
+     * Versiones redimensionadas de imageUrl (mismo formato de ruta). Se generan
+     * en segundo plano tras guardar la imagen: mientras tanto son null y el
+     * cliente usa imageUrl.
+     */
+    @Column(name = "thumbnail_url")
+    private String thumbnailUrl;
+
+    @Column(name = "card_url")
+    private String cardUrl;
+
+    @Column(name = "detail_url")
+    private String detailUrl;
+
     @Column(name = "created_at", updatable = false, nullable = false)
     private Instant createdAt;
 
+    /**
+     * Versión de la fila para ETag/If-None-Match: sube en cada alta, edición y
+     * ajuste de stock (también en los UPDATE nativos de ProductRepository).
+     * No es {@code @Version}: no se usa para bloqueo optimista.
+     */
+    @Column(name = "version", nullable = false, columnDefinition = "bigint default 0")
+    private long version;
+
+    @Column(name = "updated_at")
+    private Instant updatedAt;
+
     /** Objeto completo del vendedor (microservicio Login) */
     @Transient
     private Map<String, Object> seller;   // ya lo tenías
@@ -56,6 +89,14 @@ public class Product {
     @PrePersist
     protected void onCreate() {
         this.createdAt = Instant.now();
+        this.updatedAt = this.createdAt;
+        this.version = 1;
+    }
+
+    @PreUpdate
+    protected void onUpdate() {
+        this.updatedAt = Instant.now();
+        this.version++;
     }
 
     // --- Getters y Setters (solo muestro los nuevos al final) ---
@@ -126,6 +167,50 @@ public class Product {
         this.imageUrl = imageUrl;
     }
 
+    public String getThumbnailUrl() {
+        return thumbnailUrl;
+    }
+
+    public String getCardUrl() {
+        return cardUrl;
+    }
+
+    public String getDetailUrl() {
+        return detailUrl;
+    }
+
+    /**
+     * Copia desligada de JPA con solo las columnas persistidas (sin seller ni
+     * category). La usa la caché de productos: guarda una copia y entrega
+     * otra a cada petición, que luego la enriquece por su cuenta.
+     */
+    public Product detachedCopy() {
+        Product c = new Product();
+        c.id = id;
+        c.name = name;
+        c.description = description;
+        c.price = price;
+        c.stock = stock;
+        c.categoryId = categoryId;
+        c.sellerId = sellerId;
+        c.imageUrl = imageUrl;
+        c.thumbnailUrl = thumbnailUrl;
+        c.cardUrl = cardUrl;
+        c.detailUrl = detailUrl;
+        c.createdAt = createdAt;
+        c.version = version;
+        c.updatedAt = updatedAt;
+        return c;
+    }
+
+    /** Cambia la imagen y descarta las variantes de la anterior. */
+    public void replaceImage(String imageUrl) {
+        this.imageUrl = imageUrl;
+        this.thumbnailUrl = null;
+        this.cardUrl = null;
+        this.detailUrl = null;
+    }
+
     public Instant getCreatedAt() {
         return createdAt;
     }
@@ -134,6 +219,14 @@ public class Product {
         this.createdAt = createdAt;
     }
 
+    public long getVersion() {
+        return version;
+    }
+
+    public Instant getUpdatedAt() {
+        return updatedAt;
+    }
+
     public Map<String, Object> getCategory() { return category; }          // <-- nuevo
     public void setCategory(Map<String, Object> category) { this.category = category; } // <-- nuevo
 }
@@ -0,0 +1,53 @@
+// src/main/java/ecommers/microservicio/products/model/ProductEvent.java
+package ecommers.microservicio.products.model;
+
+import jakarta.persistence.*;
+import java.time.Instant;
+
+/**
+ * Outbox de cambios de productos (ver ProductEventLog). Se escribe en la
+ * misma transacción que el cambio; los servicios de carritos y pedidos lo
+ * leen por {@code position} con GET /api/products/events.
+ *
+ * {@code position} se asigna al leer, no al insertar: así el orden del feed
+ * es el de confirmación y un lector nunca se salta un evento que confirmó tarde.
+ */
+@Entity
+@Table(
+        name = "product_events",
+        schema = "public",
+        indexes = @Index(name = "idx_product_events_position", columnList = "position", unique = true)
+)
+public class ProductEvent {
+
+    public enum Type { CREATED, UPDATED, STOCK_CHANGED, DELETED }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    /** Offset del feed; null mientras no se ha publicado */
+    @Column(name = "position")
+    private Long position;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "type", nullable = false, length = 20)
+    private Type type;
+
+    @Column(name = "product_id", nullable = false)
+    private Long productId;
+
+    /** ProductSnapshot (CREATED/UPDATED), StockLevel (STOCK_CHANGED) o null (DELETED) */
+    @Column(name = "payload", columnDefinition = "jsonb")
+    private String payload;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+
+    public Long getId() { return id; }
+    public Long getPosition() { return position; }
+    public Type getType() { return type; }
+    public Long getProductId() { return productId; }
+    public String getPayload() { return payload; }
+    public Instant getCreatedAt() { return createdAt; }
+}
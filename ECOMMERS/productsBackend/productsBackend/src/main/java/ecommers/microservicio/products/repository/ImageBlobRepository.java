@@ -0,0 +1,57 @@
+package ecommers.microservicio.products.repository;
+
+import ecommers.microservicio.products.model.ImageBlob;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface ImageBlobRepository extends JpaRepository<ImageBlob, String> {
+
+    /**
+     * Registra (o "toca") un fichero recién escrito o deduplicado, sin cambiar
+     * su contador. Refrescar updated_at lo protege del barrido de huérfanos.
+     */
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT INTO public.image_blobs (path, ref_count, size_bytes, updated_at) " +
+                   "VALUES (:path, 0, :size, now()) " +
+                   "ON CONFLICT (path) DO UPDATE SET updated_at = now()",
+           nativeQuery = true)
+    void touch(@Param("path") String path, @Param("size") long sizeBytes);
+
+    /** Un producto más usa la imagen. Debe ir en la transacción del producto. */
+    @Modifying
+    @Query(value = "UPDATE public.image_blobs SET ref_count = ref_count + 1, updated_at = now() " +
+                   "WHERE path = :path",
+           nativeQuery = true)
+    int acquire(@Param("path") String path);
+
+    /** Un producto deja de usar la imagen. Debe ir en la transacción del producto. */
+    @Modifying
+    @Query(value = "UPDATE public.image_blobs SET ref_count = ref_count - 1, updated_at = now() " +
+                   "WHERE path = :path AND ref_count > 0",
+           nativeQuery = true)
+    int release(@Param("path") String path);
+
+    /** Candidatas a borrado: sin referencias desde antes de {@code before}. */
+    @Query("SELECT b.path FROM ImageBlob b WHERE b.refCount = 0 AND b.updatedAt < :before ORDER BY b.updatedAt")
+    List<String> findOrphans(@Param("before") Instant before, Limit limit);
+
+    /**
+     * Bloquea la fila si sigue huérfana. Mientras se tiene el bloqueo ningún
+     * touch/acquire concurrente puede "resucitarla" a medio borrar.
+     */
+    @Query(value = "SELECT path FROM public.image_blobs " +
+                   "WHERE path = :path AND ref_count = 0 AND updated_at < :before FOR UPDATE",
+           nativeQuery = true)
+    Optional<String> lockOrphan(@Param("path") String path, @Param("before") Instant before);
+}
@@ -0,0 +1,20 @@
+package ecommers.microservicio.products.repository;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Consultas con columnas elegidas por el cliente (fields=...). Cada fila es
+ * un mapa atributo -> valor en el orden pedido.
+ */
+public interface ProductFieldsRepository {
+
+    /** {@code categoryId} null = todo el catálogo. */
+    Page<Map<String, Object>> findFields(List<String> attributes, Long categoryId, Pageable pageable);
+
+    Optional<Map<String, Object>> findFieldsById(List<String> attributes, Long id);
+}
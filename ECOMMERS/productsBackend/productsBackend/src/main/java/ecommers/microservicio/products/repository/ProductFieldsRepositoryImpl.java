@@ -0,0 +1,82 @@
+package ecommers.microservicio.products.repository;
+
+import ecommers.microservicio.products.model.Product;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.criteria.*;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.data.support.PageableExecutionUtils;
+
+import java.util.*;
+
+/**
+ * Implementación con Criteria API: un SELECT solo de los atributos pedidos
+ * (tupla), sin cargar entidades ni pasar por el contexto de persistencia.
+ * Los nombres de atributo ya vienen validados por el servicio.
+ */
+class ProductFieldsRepositoryImpl implements ProductFieldsRepository {
+
+    @PersistenceContext
+    private EntityManager em;
+
+    @Override
+    public Page<Map<String, Object>> findFields(List<String> attributes, Long categoryId, Pageable pageable) {
+        CriteriaBuilder cb = em.getCriteriaBuilder();
+        CriteriaQuery<Tuple> q = cb.createTupleQuery();
+        Root<Product> p = q.from(Product.class);
+        q.multiselect(select(p, attributes));
+        if (categoryId != null) {
+            q.where(cb.equal(p.get("categoryId"), categoryId));
+        }
+        q.orderBy(QueryUtils.toOrders(pageable.getSort(), p, cb));
+
+        List<Tuple> rows = em.createQuery(q)
+                .setFirstResult((int) pageable.getOffset())
+                .setMaxResults(pageable.getPageSize())
+                .getResultList();
+        return PageableExecutionUtils.getPage(toMaps(rows, attributes), pageable, () -> count(categoryId));
+    }
+
+    @Override
+    public Optional<Map<String, Object>> findFieldsById(List<String> attributes, Long id) {
+        CriteriaBuilder cb = em.getCriteriaBuilder();
+        CriteriaQuery<Tuple> q = cb.createTupleQuery();
+        Root<Product> p = q.from(Product.class);
+        q.multiselect(select(p, attributes)).where(cb.equal(p.get("id"), id));
+        return toMaps(em.createQuery(q).getResultList(), attributes).stream().findFirst();
+    }
+
+    private long count(Long categoryId) {
+        CriteriaBuilder cb = em.getCriteriaBuilder();
+        CriteriaQuery<Long> q = cb.createQuery(Long.class);
+        Root<Product> p = q.from(Product.class);
+        q.select(cb.count(p));
+        if (categoryId != null) {
+            q.where(cb.equal(p.get("categoryId"), categoryId));
+        }
+        return em.createQuery(q).getSingleResult();
+    }
+
+    private static List<Selection<?>> select(Root<Product> p, List<String> attributes) {
+        List<Selection<?>> selections = new ArrayList<>(attributes.size());
+        for (String a : attributes) {
+            selections.add(p.get(a).alias(a));
+        }
+        return selections;
+    }
+
+    private static List<Map<String, Object>> toMaps(List<Tuple> rows, List<String> attributes) {
+        List<Map<String, Object>> out = new ArrayList<>(rows.size());
+        for (Tuple t : rows) {
+            Map<String, Object> m = new LinkedHashMap<>();
+            for (String a : attributes) {
+                m.put(a, t.get(a));
+            }
+            out.add(m);
+        }
+        return out;
+    }
+}
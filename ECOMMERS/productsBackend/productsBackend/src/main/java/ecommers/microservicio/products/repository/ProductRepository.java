@@ -1,15 +1,24 @@
 package ecommers.microservicio.products.repository;
 
 
+import ecommers.microservicio.products.dto.ProductRef;
+import ecommers.microservicio.products.dto.ProductSummary;
 import ecommers.microservicio.products.model.Product;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.*;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
 
 @Repository
-public interface ProductRepository extends JpaRepository<Product, Long> {
+public interface ProductRepository extends JpaRepository<Product, Long>, ProductFieldsRepository {
 
     /** Paginación y orden por ID ascendente */
     @Override
@@ -18,9 +27,147 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
     /** Filtrar por categoría */
     Page<Product> findByCategoryId(Long categoryId, Pageable pageable);
 
-    /** Búsqueda por nombre o descripción */
-    @Query("SELECT p FROM Product p " +
-           "WHERE LOWER(p.name) LIKE LOWER(CONCAT('%', :q, '%')) " +
-           "   OR LOWER(p.description) LIKE LOWER(CONCAT('%', :q, '%'))")
-    Page<Product> search(@Param("q") String query, Pageable pageable);
+    /** Productos de un vendedor (índice seller_id, id) */
+    Page<Product> findBySellerId(Long sellerId, Pageable pageable);
+
+    /**
+     * Búsqueda full-text por nombre o descripción (índice GIN sobre search_vector,
+     * ver db/products-schema.sql), ordenada por relevancia.
+     * {@code tsQuery} viene ya construido por SearchQueryBuilder.
+     */
+    @Query(value = "SELECT p.* FROM public.products p " +
+                   "WHERE p.search_vector @@ (to_tsquery('spanish', :tsq) || to_tsquery('english', :tsq)) " +
+                   "ORDER BY ts_rank_cd(p.search_vector, to_tsquery('spanish', :tsq) || to_tsquery('english', :tsq)) DESC, p.id DESC",
+           countQuery = "SELECT count(*) FROM public.products p " +
+                        "WHERE p.search_vector @@ (to_tsquery('spanish', :tsq) || to_tsquery('english', :tsq))",
+           nativeQuery = true)
+    Page<Product> search(@Param("tsq") String tsQuery, Pageable pageable);
+
+    /**
+     * Ajuste de stock atómico en una sola sentencia: solo se aplica si el
+     * resultado no queda negativo. Devuelve el nuevo stock, o vacío si el
+     * producto no existe o no hay stock suficiente.
+     * Debe llamarse dentro de una transacción de escritura.
+     */
+    @Query(value = "UPDATE public.products SET stock = stock + :delta, " +
+                   "version = version + 1, updated_at = now() " +
+                   "WHERE id = :id AND stock + :delta >= 0 " +
+                   "RETURNING stock",
+           nativeQuery = true)
+    Optional<Integer> addStock(@Param("id") Long id, @Param("delta") int delta);
+
+    // ----------------- Slice: size + 1 filas, sin COUNT -----------------
+
+    @Query("SELECT p FROM Product p")
+    Slice<Product> findSlice(Pageable pageable);
+
+    Slice<Product> findSliceByCategoryId(Long categoryId, Pageable pageable);
+
+    @Query(value = "SELECT p.* FROM public.products p " +
+                   "WHERE p.search_vector @@ (to_tsquery('spanish', :tsq) || to_tsquery('english', :tsq)) " +
+                   "ORDER BY ts_rank_cd(p.search_vector, to_tsquery('spanish', :tsq) || to_tsquery('english', :tsq)) DESC, p.id DESC",
+           nativeQuery = true)
+    Slice<Product> searchSlice(@Param("tsq") String tsQuery, Pageable pageable);
+
+    // ----------------- keyset (cursor): sin OFFSET ni COUNT -----------------
+
+    /** Id + relevancia de un resultado de búsqueda */
+    interface RankedId {
+        Long getId();
+        Float getRank();
+    }
+
+    List<Product> findAllByOrderByIdDesc(Limit limit);
+
+    List<Product> findByIdLessThanOrderByIdDesc(Long afterId, Limit limit);
+
+    List<Product> findByCategoryIdOrderByIdDesc(Long categoryId, Limit limit);
+
+    List<Product> findByCategoryIdAndIdLessThanOrderByIdDesc(Long categoryId, Long afterId, Limit limit);
+
+    @Query(value = "SELECT p.id AS id, ts_rank_cd(p.search_vector, q.query) AS rank " +
+                   "FROM public.products p, " +
+                   "     (SELECT to_tsquery('spanish', :tsq) || to_tsquery('english', :tsq) AS query) q " +
+                   "WHERE p.search_vector @@ q.query " +
+                   "ORDER BY rank DESC, p.id DESC " +
+                   "LIMIT :limit",
+           nativeQuery = true)
+    List<RankedId> searchFirstIds(@Param("tsq") String tsQuery, @Param("limit") int limit);
+
+    @Query(value = "SELECT p.id AS id, ts_rank_cd(p.search_vector, q.query) AS rank " +
+                   "FROM public.products p, " +
+                   "     (SELECT to_tsquery('spanish', :tsq) || to_tsquery('english', :tsq) AS query) q " +
+                   "WHERE p.search_vector @@ q.query " +
+                   "  AND (ts_rank_cd(p.search_vector, q.query), p.id) < (CAST(:afterRank AS real), :afterId) " +
+                   "ORDER BY rank DESC, p.id DESC " +
+                   "LIMIT :limit",
+           nativeQuery = true)
+    List<RankedId> searchIdsAfter(@Param("tsq") String tsQuery,
+                                  @Param("afterRank") float afterRank,
+                                  @Param("afterId") long afterId,
+                                  @Param("limit") int limit);
+
+    // ----------------- variantes de imagen -----------------
+
+    /** Producto con imagen por contenido ("ab/cd/…") cuyas variantes faltan */
+    interface PendingImage {
+        Long getId();
+        String getImageUrl();
+    }
+
+    @Query("SELECT p.id AS id, p.imageUrl AS imageUrl FROM Product p " +
+           "WHERE p.thumbnailUrl IS NULL AND p.imageUrl LIKE '__/__/%' ORDER BY p.id")
+    List<PendingImage> findPendingImageVariants(Limit limit);
+
+    /**
+     * Registra las variantes generadas, solo si el producto sigue teniendo la
+     * misma imagen (pudo cambiarse mientras se redimensionaba).
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE Product p SET p.thumbnailUrl = :thumb, p.cardUrl = :card, p.detailUrl = :detail, " +
+           "p.version = p.version + 1, p.updatedAt = CURRENT_TIMESTAMP " +
+           "WHERE p.id = :id AND p.imageUrl = :source")
+    int setImageVariants(@Param("id") Long id,
+                         @Param("source") String source,
+                         @Param("thumb") String thumbnailUrl,
+                         @Param("card") String cardUrl,
+                         @Param("detail") String detailUrl);
+
+    // ----------------- versiones (ETag) -----------------
+
+    /**
+     * Id + versión de cada fila de la página y el total del listado, en una
+     * sola consulta (count(*) over () se calcula antes del LIMIT). Es todo lo
+     * que hace falta para el ETag, y el total evita el COUNT aparte del Page.
+     */
+    interface PageStamp {
+        Long getId();
+        long getVersion();
+        long getTotal();
+    }
+
+    @Query("select p.id as id, p.version as version, count(*) over () as total from Product p")
+    List<PageStamp> findPageStamps(Pageable pageable);
+
+    @Query("select p.id as id, p.version as version, count(*) over () as total " +
+           "from Product p where p.categoryId = :categoryId")
+    List<PageStamp> findPageStampsByCategoryId(@Param("categoryId") Long categoryId, Pageable pageable);
+
+    long countByCategoryId(Long categoryId);
+
+    // ----------------- vista reducida (view=summary) -----------------
+
+    Page<ProductSummary> findSummariesBy(Pageable pageable);
+
+    Page<ProductSummary> findSummariesByCategoryId(Long categoryId, Pageable pageable);
+
+    Optional<ProductSummary> findSummaryById(Long id);
+
+    // ----------------- consulta por lotes (/batch) -----------------
+
+    @Query("SELECT new ecommers.microservicio.products.dto.ProductRef(" +
+           "p.id, p.name, p.price, p.stock, p.categoryId, p.sellerId, p.imageUrl, p.thumbnailUrl, p.version) " +
+           "FROM Product p WHERE p.id IN :ids")
+    List<ProductRef> findRefsByIdIn(@Param("ids") Collection<Long> ids);
 }
@@ -0,0 +1,114 @@
+// src/main/java/ecommers/microservicio/products/service/ApproximateCounts.java
+package ecommers.microservicio.products.service;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.Array;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Totales aproximados para los listados sin COUNT(*).
+ *
+ * Salen de las estadísticas del planificador, sin leer la tabla:
+ * <ul>
+ *   <li>total: reltuples de pg_class escalado al tamaño actual de la tabla
+ *       (la misma cuenta que hace el planificador);</li>
+ *   <li>por categoría: frecuencia de category_id en pg_stats (valores más
+ *       comunes) por el total; las categorías fuera de esa lista se reparten
+ *       a partes iguales lo que queda.</li>
+ * </ul>
+ * Se recalculan cada {@code products.counts.refresh-ms}; las peticiones solo
+ * leen los valores cacheados. Solo si la tabla no se ha analizado nunca se
+ * cuenta de verdad (es nueva y pequeña).
+ */
+@Component
+public class ApproximateCounts {
+
+    private static final String TOTAL_SQL =
+            "SELECT CASE WHEN relpages > 0 " +
+            "THEN reltuples / relpages * (pg_relation_size(oid) / current_setting('block_size')::int) " +
+            "ELSE reltuples END " +
+            "FROM pg_class WHERE oid = 'public.products'::regclass";
+
+    private static final String CATEGORY_STATS_SQL =
+            "SELECT null_frac, n_distinct, most_common_vals::text::bigint[], most_common_freqs " +
+            "FROM pg_stats WHERE schemaname = 'public' AND tablename = 'products' AND attname = 'category_id'";
+
+    private static final String EXACT_SQL =
+            "SELECT category_id, count(*) FROM public.products GROUP BY category_id";
+
+    private final JdbcTemplate jdbc;
+
+    private volatile Long total;
+    private volatile Map<Long, Long> byCategory = Map.of();
+    /** Estimación para una categoría que no está en byCategory */
+    private volatile long otherCategory;
+
+    public ApproximateCounts(JdbcTemplate jdbc) {
+        this.jdbc = jdbc;
+    }
+
+    /** Total aproximado del catálogo (null si todavía no se ha calculado). */
+    public Long total() {
+        return total;
+    }
+
+    /** Total aproximado de una categoría. */
+    public Long byCategory(Long categoryId) {
+        return total == null ? null : byCategory.getOrDefault(categoryId, otherCategory);
+    }
+
+    @Scheduled(fixedDelayString = "${products.counts.refresh-ms:60000}")
+    public void refresh() {
+        Double rows = jdbc.queryForObject(TOTAL_SQL, Double.class);
+        List<Estimate> stats = jdbc.query(CATEGORY_STATS_SQL, (rs, n) -> new Estimate(
+                rs.getDouble(1), rs.getDouble(2), toLongs(rs.getArray(3)), toDoubles(rs.getArray(4))));
+        if (rows == null || rows < 0 || stats.isEmpty()) {
+            refreshExact(); // nunca analizada: no hay estadísticas
+            return;
+        }
+
+        long all = Math.round(rows);
+        Estimate s = stats.get(0);
+        Map<Long, Long> next = new HashMap<>();
+        double covered = s.nullFrac();
+        for (int i = 0; i < s.values().length; i++) {
+            next.put(s.values()[i], Math.round(s.freqs()[i] * all));
+            covered += s.freqs()[i];
+        }
+        // n_distinct < 0: fracción de filas distintas en vez de un número fijo
+        double distinct = s.nDistinct() >= 0 ? s.nDistinct() : -s.nDistinct() * all;
+        double others = distinct - s.values().length;
+        otherCategory = others >= 1 ? Math.round(Math.max(0, 1 - covered) * all / others) : 0;
+        byCategory = Map.copyOf(next);
+        total = all;
+    }
+
+    private void refreshExact() {
+        Map<Long, Long> next = new HashMap<>();
+        jdbc.query(EXACT_SQL, rs -> { next.put(rs.getLong(1), rs.getLong(2)); });
+        otherCategory = 0;
+        byCategory = Map.copyOf(next);
+        total = next.values().stream().mapToLong(Long::longValue).sum();
+    }
+
+    private record Estimate(double nullFrac, double nDistinct, Long[] values, double[] freqs) {}
+
+    private static Long[] toLongs(Array a) throws SQLException {
+        return a == null ? new Long[0] : (Long[]) a.getArray();
+    }
+
+    // most_common_freqs es real[]
+    private static double[] toDoubles(Array a) throws SQLException {
+        if (a == null) return new double[0];
+        Float[] f = (Float[]) a.getArray();
+        double[] d = new double[f.length];
+        for (int i = 0; i < f.length; i++) d[i] = f[i];
+        return d;
+    }
+}
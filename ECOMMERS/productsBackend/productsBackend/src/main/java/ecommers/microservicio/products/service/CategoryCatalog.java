@@ -0,0 +1,111 @@
+// src/main/java/ecommers/microservicio/products/service/CategoryCatalog.java
+package ecommers.microservicio.products.service;
+
+import jakarta.persistence.EntityNotFoundException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.*;
+
+/**
+ * Copia en memoria de todas las categorías (microservicio Categories).
+ *
+ * Las categorías son pocas y cambian muy poco, así que se descargan enteras
+ * (GET /categories) y se guardan como un mapa inmutable id -> categoría.
+ * Las lecturas son un simple get sobre el mapa, sin llamadas de red.
+ * El snapshot se renueva periódicamente, al recibir un aviso de cambio
+ * ({@link #refresh()}) o cuando se pide un ID que todavía no conocemos.
+ */
+@Component
+public class CategoryCatalog {
+
+    private final RestTemplate http;
+    private final String categoriesBaseUrl;
+    private final long missRefreshMinIntervalMs;
+
+    /** Snapshot actual; se reemplaza entero, nunca se modifica */
+    private volatile Map<Long, Map<String, Object>> snapshot = Map.of();
+    private volatile long lastRefreshAt = 0L;
+
+    public CategoryCatalog(RestTemplate http,
+                           @Value("${categories.base-url:http://localhost:8081/api}") String categoriesBaseUrl,
+                           @Value("${categories.catalog.miss-refresh-min-interval-ms:5000}") long missRefreshMinIntervalMs) {
+        this.http = http;
+        this.categoriesBaseUrl = categoriesBaseUrl;
+        this.missRefreshMinIntervalMs = missRefreshMinIntervalMs;
+    }
+
+    /** Categoría por ID desde el snapshot (null si no existe o aún no se ha cargado). */
+    public Map<String, Object> find(Long categoryId) {
+        return categoryId == null ? null : snapshot.get(categoryId);
+    }
+
+    /**
+     * Categoría por ID para validar altas/ediciones. Si no está en el snapshot
+     * se recarga una vez (puede ser una categoría recién creada) antes de fallar.
+     */
+    public Map<String, Object> getOrThrow(Long categoryId) {
+        Map<String, Object> cat = find(categoryId);
+        if (cat == null && refreshIfStale()) {
+            cat = find(categoryId);
+        }
+        if (cat == null) {
+            throw new EntityNotFoundException("Categoría no encontrada: " + categoryId);
+        }
+        return cat;
+    }
+
+    /** Recarga periódica del snapshot (por defecto cada minuto). */
+    @Scheduled(fixedDelayString = "${categories.catalog.refresh-ms:60000}")
+    public void scheduledRefresh() {
+        try {
+            refresh();
+        } catch (IllegalStateException ignore) {
+            // nos quedamos con el snapshot anterior hasta el próximo intento
+        }
+    }
+
+    /** Descarga todas las categorías y reemplaza el snapshot de forma atómica. */
+    public synchronized void refresh() {
+        String listUrl = categoriesBaseUrl + "/categories";
+        try {
+            @SuppressWarnings("unchecked")
+            List<Map<String, Object>> all = http.getForObject(listUrl, List.class);
+            Map<Long, Map<String, Object>> next = new HashMap<>();
+            if (all != null) {
+                for (Map<String, Object> c : all) {
+                    Object idObj = c.get("id");
+                    if (idObj != null) {
+                        next.put(Long.valueOf(idObj.toString()), Collections.unmodifiableMap(new LinkedHashMap<>(c)));
+                    }
+                }
+            }
+            snapshot = Map.copyOf(next);
+            lastRefreshAt = System.currentTimeMillis();
+        } catch (RestClientException ex) {
+            throw new IllegalStateException("No se pudo consultar categorías remotas: " + ex.getMessage(), ex);
+        }
+    }
+
+    /** Número de categorías en el snapshot actual. */
+    public int size() {
+        return snapshot.size();
+    }
+
+    /** Refresca solo si el último refresco es más antiguo que el intervalo mínimo (evita tormentas de recargas por IDs inexistentes). */
+    private boolean refreshIfStale() {
+        if (System.currentTimeMillis() - lastRefreshAt < missRefreshMinIntervalMs) {
+            return false;
+        }
+        synchronized (this) {
+            if (System.currentTimeMillis() - lastRefreshAt < missRefreshMinIntervalMs) {
+                return true; // otro hilo acaba de refrescar
+            }
+            refresh();
+            return true;
+        }
+    }
+}
@@ -0,0 +1,127 @@
+// src/main/java/ecommers/microservicio/products/service/ImageVariantPipeline.java
+package ecommers.microservicio.products.service;
+
+import ecommers.microservicio.products.dto.ProductSnapshot;
+import ecommers.microservicio.products.repository.ProductRepository;
+import ecommers.microservicio.products.repository.ProductRepository.PendingImage;
+import ecommers.microservicio.products.storage.ImageStore;
+import ecommers.microservicio.products.storage.ImageVariant;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Genera en segundo plano las variantes (miniatura, tarjeta, detalle) de las
+ * imágenes de producto y las anota en la fila.
+ *
+ * Se encola después del commit del alta/edición, así que la petición nunca
+ * espera a decodificar ni redimensionar. El pool es fijo y la cola acotada: si
+ * se llena, el trabajo se descarta y lo recoge el repaso periódico, que también
+ * rehace lo que se perdiera en un reinicio.
+ *
+ * Si la imagen no se puede decodificar (formato, fichero corrupto), las
+ * variantes apuntan al original: el producto queda resuelto y no se reintenta
+ * en cada repaso.
+ */
+@Component
+public class ImageVariantPipeline {
+
+    private static final Logger log = LoggerFactory.getLogger(ImageVariantPipeline.class);
+
+    private final ProductRepository repo;
+    private final ImageStore images;
+    private final ProductCache cache;
+    private final ProductEventLog events;
+    private final TransactionTemplate tx;
+    private final int backfillBatchSize;
+    private final ThreadPoolTaskExecutor workers = new ThreadPoolTaskExecutor();
+
+    /** Productos ya encolados, para que el repaso no los duplique */
+    private final Set<Long> queued = ConcurrentHashMap.newKeySet();
+
+    public ImageVariantPipeline(ProductRepository repo,
+                                ImageStore images,
+                                ProductCache cache,
+                                ProductEventLog events,
+                                TransactionTemplate tx,
+                                @Value("${products.images.variants.threads:2}") int threads,
+                                @Value("${products.images.variants.queue-size:200}") int queueSize,
+                                @Value("${products.images.variants.backfill-batch-size:100}") int backfillBatchSize) {
+        this.repo = repo;
+        this.images = images;
+        this.cache = cache;
+        this.events = events;
+        this.tx = tx;
+        this.backfillBatchSize = backfillBatchSize;
+        workers.setCorePoolSize(threads);
+        workers.setMaxPoolSize(threads);
+        workers.setQueueCapacity(queueSize);
+        workers.setThreadNamePrefix("image-variants-");
+        workers.setWaitForTasksToCompleteOnShutdown(false);
+        workers.initialize();
+    }
+
+    @PreDestroy
+    void shutdown() {
+        workers.shutdown();
+    }
+
+    /** Encola la generación; nunca bloquea ni lanza. Llamar tras el commit. */
+    public void submit(Long productId, String imagePath) {
+        if (productId == null || imagePath == null || !queued.add(productId)) {
+            return;
+        }
+        try {
+            workers.execute(() -> {
+                try {
+                    process(productId, imagePath);
+                } finally {
+                    queued.remove(productId);
+                }
+            });
+        } catch (TaskRejectedException ex) {
+            queued.remove(productId);
+            log.debug("Cola de variantes llena; producto {} queda para el repaso", productId);
+        }
+    }
+
+    /** Repasa productos con imagen por contenido y sin variantes. */
+    @Scheduled(fixedDelayString = "${products.images.variants.backfill-ms:60000}",
+               initialDelayString = "${products.images.variants.backfill-ms:60000}")
+    public void backfill() {
+        for (PendingImage p : repo.findPendingImageVariants(Limit.of(backfillBatchSize))) {
+            submit(p.getId(), p.getImageUrl());
+        }
+    }
+
+    private void process(Long productId, String imagePath) {
+        try {
+            Map<ImageVariant, String> v = images.createVariants(imagePath);
+            tx.executeWithoutResult(status -> {
+                int updated = repo.setImageVariants(productId, imagePath,
+                        v.getOrDefault(ImageVariant.THUMBNAIL, imagePath),
+                        v.getOrDefault(ImageVariant.CARD, imagePath),
+                        v.getOrDefault(ImageVariant.DETAIL, imagePath));
+                if (updated > 0) {
+                    repo.findById(productId).ifPresent(p -> events.updated(ProductSnapshot.of(p)));
+                    cache.evictAfterCommit(productId);
+                }
+            });
+        } catch (Exception ex) {
+            // Disco o BD: se reintenta en el próximo repaso
+            log.warn("No se pudieron generar las variantes de {} (producto {}): {}",
+                    imagePath, productId, ex.getMessage());
+        }
+    }
+}
@@ -0,0 +1,150 @@
+// src/main/java/ecommers/microservicio/products/service/ProductBulkEditor.java
+package ecommers.microservicio.products.service;
+
+import ecommers.microservicio.products.dto.BulkProductUpdate;
+import ecommers.microservicio.products.dto.ProductSnapshot;
+import jakarta.persistence.EntityNotFoundException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.*;
+
+/**
+ * Cambios masivos de precio/stock de un vendedor (PATCH /api/products/bulk).
+ *
+ * Frente a N PUT multipart: el vendedor se valida una sola vez, no se
+ * consulta Categories ni se toca la imagen, y todas las filas se actualizan
+ * con un único UPDATE (arrays + unnest) en una transacción. O se aplican
+ * todas las líneas o ninguna.
+ *
+ * Antes del UPDATE se bloquean las filas en orden de id, como en el ajuste
+ * de stock múltiple, para que dos ediciones concurrentes no se interbloqueen.
+ */
+@Component
+public class ProductBulkEditor {
+
+    /** Líneas máximas por petición */
+    public static final int MAX_ITEMS = 1000;
+
+    private static final String LOCK_SQL =
+            "SELECT id FROM public.products WHERE id = ANY (?) AND seller_id = ? ORDER BY id FOR UPDATE";
+
+    // coalesce: lo que no viene en la línea se queda como estaba
+    private static final String UPDATE_SQL =
+            "UPDATE public.products p SET " +
+            "price = coalesce(v.price, p.price), stock = coalesce(v.stock, p.stock), " +
+            "version = p.version + 1, updated_at = now() " +
+            "FROM unnest(?::bigint[], ?::float8[], ?::int[]) AS v(id, price, stock) " +
+            "WHERE p.id = v.id AND p.seller_id = ? " +
+            "RETURNING p.id, p.name, p.description, p.price, p.stock, p.category_id, p.seller_id, " +
+            "p.image_url, p.thumbnail_url, p.card_url, p.detail_url, p.version, p.updated_at";
+
+    private final JdbcTemplate jdbc;
+    private final TransactionTemplate tx;
+    private final SellerDirectory sellers;
+    private final ProductCache cache;
+    private final ProductEventLog events;
+
+    public ProductBulkEditor(JdbcTemplate jdbc,
+                             TransactionTemplate tx,
+                             SellerDirectory sellers,
+                             ProductCache cache,
+                             ProductEventLog events) {
+        this.jdbc = jdbc;
+        this.tx = tx;
+        this.sellers = sellers;
+        this.cache = cache;
+        this.events = events;
+    }
+
+    /**
+     * Aplica los cambios y devuelve las filas resultantes en orden de id.
+     * IllegalArgumentException si la petición no es válida o el usuario no es
+     * vendedor; EntityNotFoundException si algún producto no existe o es de
+     * otro vendedor (en ese caso no se cambia nada).
+     */
+    public List<ProductSnapshot> apply(BulkProductUpdate update) {
+        if (update == null || update.sellerId() == null) {
+            throw new IllegalArgumentException("sellerId es requerido");
+        }
+        SortedMap<Long, BulkProductUpdate.Item> items = validate(update.items());
+        sellers.getSellerOrThrow(update.sellerId());
+
+        int n = items.size();
+        Long[] ids = new Long[n];
+        Double[] prices = new Double[n];
+        Integer[] stocks = new Integer[n];
+        int i = 0;
+        for (BulkProductUpdate.Item it : items.values()) {
+            ids[i] = it.id();
+            prices[i] = it.price();
+            stocks[i] = it.stock();
+            i++;
+        }
+
+        return tx.execute(status -> {
+            List<Long> locked = jdbc.queryForList(LOCK_SQL, Long.class, ids, update.sellerId());
+            if (locked.size() != n) {
+                Set<Long> missing = new TreeSet<>(items.keySet());
+                locked.forEach(missing::remove);
+                throw new EntityNotFoundException(
+                        "Productos inexistentes o de otro vendedor: " + missing);
+            }
+            List<ProductSnapshot> updated = new ArrayList<>(
+                    jdbc.query(UPDATE_SQL, ProductBulkEditor::snapshot, ids, prices, stocks, update.sellerId()));
+            updated.sort(Comparator.comparing(ProductSnapshot::id));
+            events.updatedAll(updated);
+            cache.evictAfterCommit(items.keySet());
+            return updated;
+        });
+    }
+
+    /** Líneas por id (sin repetidos) y con al menos un cambio válido cada una. */
+    private static SortedMap<Long, BulkProductUpdate.Item> validate(List<BulkProductUpdate.Item> items) {
+        if (items == null || items.isEmpty()) {
+            throw new IllegalArgumentException("items no puede estar vacío");
+        }
+        if (items.size() > MAX_ITEMS) {
+            throw new IllegalArgumentException("Como máximo " + MAX_ITEMS + " productos por petición");
+        }
+        SortedMap<Long, BulkProductUpdate.Item> byId = new TreeMap<>();
+        for (BulkProductUpdate.Item it : items) {
+            if (it == null || it.id() == null) {
+                throw new IllegalArgumentException("id es requerido en cada línea");
+            }
+            if (it.price() == null && it.stock() == null) {
+                throw new IllegalArgumentException("Producto " + it.id() + ": indica price y/o stock");
+            }
+            if (it.price() != null && (!Double.isFinite(it.price()) || it.price() < 0)) {
+                throw new IllegalArgumentException("Producto " + it.id() + ": precio no válido");
+            }
+            if (it.stock() != null && it.stock() < 0) {
+                throw new IllegalArgumentException("Producto " + it.id() + ": el stock no puede ser negativo");
+            }
+            if (byId.put(it.id(), it) != null) {
+                throw new IllegalArgumentException("Producto " + it.id() + " repetido");
+            }
+        }
+        return byId;
+    }
+
+    private static ProductSnapshot snapshot(ResultSet rs, int rowNum) throws SQLException {
+        return new ProductSnapshot(
+                rs.getLong("id"),
+                rs.getString("name"),
+                rs.getString("description"),
+                rs.getObject("price", Double.class),
+                rs.getObject("stock", Integer.class),
+                rs.getObject("category_id", Long.class),
+                rs.getObject("seller_id", Long.class),
+                rs.getString("image_url"),
+                rs.getString("thumbnail_url"),
+                rs.getString("card_url"),
+                rs.getString("detail_url"),
+                rs.getLong("version"),
+                rs.getTimestamp("updated_at").toInstant());
+    }
+}
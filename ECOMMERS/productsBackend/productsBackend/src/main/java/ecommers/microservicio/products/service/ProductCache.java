@@ -0,0 +1,78 @@
+// src/main/java/ecommers/microservicio/products/service/ProductCache.java
+package ecommers.microservicio.products.service;
+
+import ecommers.microservicio.products.cache.CacheStats;
+import ecommers.microservicio.products.cache.ExpiringCache;
+import ecommers.microservicio.products.model.Product;
+import ecommers.microservicio.products.repository.ProductRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Caché read-through de productos por id (detalle, ETag del detalle).
+ *
+ * Guarda solo la fila persistida, nunca el vendedor ni la categoría: el
+ * enriquecimiento tiene sus propias cachés y caducidades. Cada lectura recibe
+ * una copia, así que quien la enriquece no toca lo cacheado.
+ *
+ * Las escrituras invalidan con {@link #evictAfterCommit}: si se borrara antes
+ * del commit, otra petición podría recargar la fila vieja y dejarla en caché.
+ * Las cargas concurrentes de un mismo id se agrupan (ver ExpiringCache).
+ */
+@Component
+public class ProductCache {
+
+    private final ProductRepository repo;
+    private final ExpiringCache<Long, Product> cache;
+
+    public ProductCache(ProductRepository repo,
+                        @Value("${products.cache.max-size:10000}") int maxSize,
+                        @Value("${products.cache.ttl-ms:60000}") long ttlMs,
+                        @Value("${products.cache.negative-ttl-ms:5000}") long negativeTtlMs) {
+        this.repo = repo;
+        this.cache = new ExpiringCache<>(maxSize, ttlMs, negativeTtlMs);
+    }
+
+    /** Copia de la fila (sin enriquecer) o vacío si no existe. */
+    public Optional<Product> find(Long id) {
+        Product row = cache.get(id, k -> repo.findById(k).map(Product::detachedCopy).orElse(null));
+        return Optional.ofNullable(row).map(Product::detachedCopy);
+    }
+
+    /**
+     * Invalida cuando la transacción actual confirme (o ya mismo si no hay
+     * ninguna). También para ids recién creados, por si había un negativo.
+     */
+    public void evictAfterCommit(Long id) {
+        evictAfterCommit(List.of(id));
+    }
+
+    public void evictAfterCommit(Collection<Long> ids) {
+        if (ids.isEmpty()) return;
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            ids.forEach(cache::invalidate);
+            return;
+        }
+        List<Long> copy = List.copyOf(ids);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                copy.forEach(cache::invalidate);
+            }
+        });
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    public CacheStats stats() {
+        return cache.stats();
+    }
+}
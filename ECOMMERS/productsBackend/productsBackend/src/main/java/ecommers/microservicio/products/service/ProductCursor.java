@@ -0,0 +1,44 @@
+// src/main/java/ecommers/microservicio/products/service/ProductCursor.java
+package ecommers.microservicio.products.service;
+
+import java.nio.ByteBuffer;
+import java.util.Base64;
+
+/**
+ * Cursor opaco para los listados por keyset: la posición del último producto
+ * devuelto (su id y, en búsquedas, su relevancia) codificada en base64url.
+ *
+ * La relevancia se guarda con sus bits exactos para que la comparación
+ * {@code (rank, id) < (:rank, :id)} en Postgres sea estable entre páginas.
+ */
+record ProductCursor(long id, Float rank) {
+
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    String encode() {
+        ByteBuffer buf = ByteBuffer.allocate(rank == null ? Long.BYTES : Long.BYTES + Integer.BYTES);
+        buf.putLong(id);
+        if (rank != null) buf.putInt(Float.floatToIntBits(rank));
+        return ENCODER.encodeToString(buf.array());
+    }
+
+    /** null si {@code token} está vacío (primera página). */
+    static ProductCursor decode(String token, boolean withRank) {
+        if (token == null || token.isBlank()) {
+            return null;
+        }
+        try {
+            ByteBuffer buf = ByteBuffer.wrap(DECODER.decode(token));
+            int expected = withRank ? Long.BYTES + Integer.BYTES : Long.BYTES;
+            if (buf.remaining() != expected) {
+                throw new IllegalArgumentException("Cursor no válido");
+            }
+            long id = buf.getLong();
+            Float rank = withRank ? Float.intBitsToFloat(buf.getInt()) : null;
+            return new ProductCursor(id, rank);
+        } catch (IllegalArgumentException ex) {
+            throw new IllegalArgumentException("Cursor no válido", ex);
+        }
+    }
+}
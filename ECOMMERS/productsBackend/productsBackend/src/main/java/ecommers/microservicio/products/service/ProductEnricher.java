@@ -0,0 +1,59 @@
+// src/main/java/ecommers/microservicio/products/service/ProductEnricher.java
+package ecommers.microservicio.products.service;
+
+import ecommers.microservicio.products.model.Product;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Adjunta a los productos su vendedor (Login, vía {@link SellerDirectory}) y
+ * su categoría ({@link CategoryCatalog} local). Nunca falla: lo que no se
+ * puede resolver queda a null.
+ */
+@Component
+public class ProductEnricher {
+
+    private final SellerDirectory sellers;
+    private final CategoryCatalog categories;
+
+    public ProductEnricher(SellerDirectory sellers, CategoryCatalog categories) {
+        this.sellers = sellers;
+        this.categories = categories;
+    }
+
+    /** Un producto suelto (detalle, alta, edición). */
+    public void attach(Product p) {
+        try {
+            if (p.getSellerId() != null) {
+                p.setSeller(sellers.getSellerOrThrow(p.getSellerId()));
+            }
+        } catch (Exception ignore) {
+            p.setSeller(null);
+        }
+        p.setCategory(categories.find(p.getCategoryId()));
+    }
+
+    /**
+     * Una página completa: vendedores con una llamada bulk solo para los que
+     * no están en caché, y categorías sin red.
+     */
+    public void attachAll(Collection<Product> products) {
+        if (products.isEmpty()) return;
+
+        Set<Long> sellerIds = new HashSet<>();
+        for (Product p : products) {
+            if (p.getSellerId() != null) sellerIds.add(p.getSellerId());
+        }
+
+        Map<Long, Map<String, Object>> found = sellers.findSellers(sellerIds);
+
+        for (Product p : products) {
+            p.setSeller(p.getSellerId() != null ? found.get(p.getSellerId()) : null);
+            p.setCategory(categories.find(p.getCategoryId()));
+        }
+    }
+}
@@ -0,0 +1,186 @@
+// src/main/java/ecommers/microservicio/products/service/ProductEventLog.java
+package ecommers.microservicio.products.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import ecommers.microservicio.products.dto.ProductEventFeed;
+import ecommers.microservicio.products.dto.ProductSnapshot;
+import ecommers.microservicio.products.dto.StockLevel;
+import ecommers.microservicio.products.model.ProductEvent.Type;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Outbox de cambios de productos (tabla product_events).
+ *
+ * Escritura: los métodos de registro exigen una transacción abierta
+ * (MANDATORY), la misma que cambia el producto; si esta se deshace, el evento
+ * tampoco existe.
+ *
+ * Lectura: {@link #feed} devuelve los eventos por {@code position}. Los ids
+ * de la tabla no sirven de offset: una transacción que empezó antes puede
+ * confirmar después con un id menor, y quien ya leyó más allá se lo saltaría.
+ * Por eso la posición se asigna al leer, con un cerrojo consultivo de transacción
+ * ({@code pg_advisory_xact_lock}) y solo a eventos ya confirmados: lo que
+ * confirme más tarde recibe una posición mayor.
+ */
+@Component
+public class ProductEventLog {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductEventLog.class);
+
+    public static final int MAX_FEED_SIZE = 1000;
+
+    /** Clave del cerrojo consultivo que serializa la publicación */
+    private static final long PUBLISH_LOCK = 0x70726f645f657674L; // "prod_evt"
+
+    private static final String INSERT_SQL =
+            "INSERT INTO public.product_events (type, product_id, payload, created_at) " +
+            "VALUES (?, ?, CAST(? AS jsonb), ?)";
+
+    private static final String HAS_PENDING_SQL =
+            "SELECT EXISTS (SELECT 1 FROM public.product_events WHERE position IS NULL)";
+
+    // Numera los pendientes (ya confirmados) a continuación del último publicado
+    private static final String PUBLISH_SQL =
+            "UPDATE public.product_events e SET position = s.base + s.rn " +
+            "FROM (SELECT id, row_number() OVER (ORDER BY id) AS rn, " +
+            "             (SELECT coalesce(max(position), 0) FROM public.product_events) AS base " +
+            "      FROM public.product_events WHERE position IS NULL ORDER BY id LIMIT ?) s " +
+            "WHERE e.id = s.id";
+
+    private static final String FEED_SQL =
+            "SELECT position, type, product_id, created_at, payload::text " +
+            "FROM public.product_events WHERE position > ? ORDER BY position LIMIT ?";
+
+    // Nunca borra el último publicado: de él sale la siguiente posición
+    private static final String PURGE_SQL =
+            "DELETE FROM public.product_events WHERE created_at < ? AND position IS NOT NULL " +
+            "AND position < (SELECT max(position) FROM public.product_events)";
+
+    private final JdbcTemplate jdbc;
+    private final TransactionTemplate tx;
+    private final ObjectMapper json;
+    private final int publishBatchSize;
+    private final long retentionMs;
+
+    public ProductEventLog(JdbcTemplate jdbc,
+                           TransactionTemplate tx,
+                           ObjectMapper json,
+                           @Value("${products.events.publish-batch-size:5000}") int publishBatchSize,
+                           @Value("${products.events.retention-ms:604800000}") long retentionMs) {
+        this.jdbc = jdbc;
+        this.tx = tx;
+        this.json = json;
+        this.publishBatchSize = publishBatchSize;
+        this.retentionMs = retentionMs;
+    }
+
+    // ----------------- registro (dentro de la transacción del cambio) -----------------
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void created(ProductSnapshot p) {
+        insert(row(Type.CREATED, p.id(), p));
+    }
+
+    /** Altas masivas (importación): un único batch. */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void createdAll(List<ProductSnapshot> products) {
+        insertAll(Type.CREATED, products);
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void updated(ProductSnapshot p) {
+        insert(row(Type.UPDATED, p.id(), p));
+    }
+
+    /** Ediciones masivas: un único batch. */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void updatedAll(List<ProductSnapshot> products) {
+        insertAll(Type.UPDATED, products);
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void stockChanged(StockLevel level) {
+        insert(row(Type.STOCK_CHANGED, level.productId(), level));
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void deleted(Long productId) {
+        insert(row(Type.DELETED, productId, null));
+    }
+
+    private Object[] row(Type type, Long productId, Object payload) {
+        try {
+            String body = payload == null ? null : json.writeValueAsString(payload);
+            return new Object[]{type.name(), productId, body, Timestamp.from(Instant.now())};
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException("No se pudo serializar el evento de " + productId, ex);
+        }
+    }
+
+    private void insert(Object[] row) {
+        jdbc.update(INSERT_SQL, row);
+    }
+
+    private void insertAll(Type type, List<ProductSnapshot> products) {
+        List<Object[]> rows = new ArrayList<>(products.size());
+        for (ProductSnapshot p : products) {
+            rows.add(row(type, p.id(), p));
+        }
+        if (!rows.isEmpty()) {
+            jdbc.batchUpdate(INSERT_SQL, rows);
+        }
+    }
+
+    // ----------------- lectura -----------------
+
+    /**
+     * Eventos con posición mayor que {@code after}, en orden. Antes publica
+     * (numera) lo que haya confirmado desde la última lectura.
+     */
+    public ProductEventFeed feed(long after, int limit) {
+        if (after < 0) {
+            throw new IllegalArgumentException("after debe ser >= 0");
+        }
+        if (limit < 1 || limit > MAX_FEED_SIZE) {
+            throw new IllegalArgumentException("limit debe estar entre 1 y " + MAX_FEED_SIZE);
+        }
+        return tx.execute(status -> {
+            if (Boolean.TRUE.equals(jdbc.queryForObject(HAS_PENDING_SQL, Boolean.class))) {
+                jdbc.execute("SELECT pg_advisory_xact_lock(" + PUBLISH_LOCK + ")");
+                jdbc.update(PUBLISH_SQL, publishBatchSize);
+            }
+            List<ProductEventFeed.Event> events = jdbc.query(FEED_SQL, (rs, n) -> new ProductEventFeed.Event(
+                    rs.getLong(1),
+                    rs.getString(2),
+                    rs.getLong(3),
+                    rs.getTimestamp(4).toInstant(),
+                    rs.getString(5)), after, limit);
+            long next = events.isEmpty() ? after : events.get(events.size() - 1).position();
+            return new ProductEventFeed(events, next);
+        });
+    }
+
+    /** Borra los eventos publicados con más de {@code products.events.retention-ms}. */
+    @Scheduled(fixedDelayString = "${products.events.purge-interval-ms:3600000}",
+               initialDelayString = "${products.events.purge-interval-ms:3600000}")
+    public void purge() {
+        int removed = jdbc.update(PURGE_SQL, Timestamp.from(Instant.now().minusMillis(retentionMs)));
+        if (removed > 0) {
+            log.info("Eventos de producto purgados: {}", removed);
+        }
+    }
+}
@@ -0,0 +1,110 @@
+// src/main/java/ecommers/microservicio/products/service/ProductExporter.java
+package ecommers.microservicio.products.service;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Volcado del catálogo en NDJSON (un producto por línea), tal cual está en la
+ * BD: sin vendedor ni categoría adjuntos.
+ *
+ * La consulta va con un cursor del servidor: dentro de una transacción de
+ * solo lectura (pgjdbc solo usa cursor con autocommit desactivado) y con
+ * {@code products.export.fetch-size} filas por viaje. Cada fila se escribe
+ * en cuanto llega, así que la memoria no crece con el catálogo.
+ */
+@Component
+public class ProductExporter {
+
+    private static final String SELECT_SQL =
+            "SELECT id, name, description, price, stock, category_id, seller_id, image_url, " +
+            "thumbnail_url, card_url, detail_url, created_at, updated_at, version " +
+            "FROM public.products";
+
+    private final JdbcTemplate jdbc;
+    private final TransactionTemplate readOnlyTx;
+    private final ObjectMapper json;
+
+    public ProductExporter(DataSource dataSource,
+                           PlatformTransactionManager txManager,
+                           ObjectMapper json,
+                           @Value("${products.export.fetch-size:1000}") int fetchSize) {
+        this.jdbc = new JdbcTemplate(dataSource);
+        this.jdbc.setFetchSize(fetchSize);
+        this.readOnlyTx = new TransactionTemplate(txManager);
+        this.readOnlyTx.setReadOnly(true);
+        this.json = json;
+    }
+
+    /** Escribe los productos (filtros opcionales) en orden de id. */
+    public void exportNdjson(Long categoryId, Long sellerId, OutputStream out) throws IOException {
+        StringBuilder sql = new StringBuilder(SELECT_SQL);
+        List<Object> args = new ArrayList<>(2);
+        String glue = " WHERE ";
+        if (categoryId != null) {
+            sql.append(glue).append("category_id = ?");
+            args.add(categoryId);
+            glue = " AND ";
+        }
+        if (sellerId != null) {
+            sql.append(glue).append("seller_id = ?");
+            args.add(sellerId);
+        }
+        sql.append(" ORDER BY id");
+
+        try (JsonGenerator gen = json.getFactory().createGenerator(out, JsonEncoding.UTF8)) {
+            gen.setRootValueSeparator(null);
+            readOnlyTx.executeWithoutResult(status ->
+                    jdbc.query(sql.toString(), rs -> {
+                        try {
+                            writeRow(gen, rs);
+                        } catch (IOException ex) {
+                            // cliente desconectado: se corta la consulta y se libera el cursor
+                            throw new UncheckedIOException(ex);
+                        }
+                    }, args.toArray()));
+        } catch (UncheckedIOException ex) {
+            throw ex.getCause();
+        }
+    }
+
+    private static void writeRow(JsonGenerator gen, ResultSet rs) throws IOException, SQLException {
+        gen.writeStartObject();
+        gen.writeNumberField("id", rs.getLong("id"));
+        gen.writeStringField("name", rs.getString("name"));
+        gen.writeStringField("description", rs.getString("description"));
+        gen.writeNumberField("price", rs.getDouble("price"));
+        gen.writeNumberField("stock", rs.getInt("stock"));
+        gen.writeNumberField("categoryId", rs.getLong("category_id"));
+        gen.writeNumberField("sellerId", rs.getLong("seller_id"));
+        gen.writeStringField("imageUrl", rs.getString("image_url"));
+        gen.writeStringField("thumbnailUrl", rs.getString("thumbnail_url"));
+        gen.writeStringField("cardUrl", rs.getString("card_url"));
+        gen.writeStringField("detailUrl", rs.getString("detail_url"));
+        gen.writeStringField("createdAt", instant(rs.getTimestamp("created_at")));
+        gen.writeStringField("updatedAt", instant(rs.getTimestamp("updated_at")));
+        gen.writeNumberField("version", rs.getLong("version"));
+        gen.writeEndObject();
+        gen.writeRaw('\n');
+    }
+
+    private static String instant(Timestamp ts) {
+        return ts == null ? null : ts.toInstant().toString();
+    }
+}
@@ -0,0 +1,128 @@
+// src/main/java/ecommers/microservicio/products/service/ProductFacetQuery.java
+package ecommers.microservicio.products.service;
+
+import ecommers.microservicio.products.dto.ProductFacets.PriceBucket;
+import ecommers.microservicio.products.dto.ProductFilter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * SQL del filtro combinado de productos.
+ *
+ * Los recuentos de todas las facetas y el total salen de una sola pasada:
+ * GROUP BY GROUPING SETS ((categoría), (vendedor), (tramo de precio), ()) sobre
+ * las filas que cumplen el filtro. Los tramos los calcula width_bucket con los
+ * límites de {@code products.facets.price-edges}.
+ *
+ * Índices que lo sostienen: (category_id, price), (seller_id, id), (price, id)
+ * en Product y el GIN de search_vector.
+ */
+@Component
+public class ProductFacetQuery {
+
+    /** Resultado crudo del GROUPING SETS */
+    record Counts(long total,
+                  Map<Long, Long> byCategory,
+                  Map<Long, Long> bySeller,
+                  List<PriceBucket> prices) {}
+
+    // GROUPING(category_id, seller_id, bucket): bit a 1 = columna no agrupada
+    private static final int BY_CATEGORY = 0b011;
+    private static final int BY_SELLER = 0b101;
+    private static final int BY_PRICE = 0b110;
+    private static final int TOTAL = 0b111;
+
+    private final NamedParameterJdbcTemplate jdbc;
+    private final double[] priceEdges;
+    private final String edgesLiteral;
+
+    public ProductFacetQuery(NamedParameterJdbcTemplate jdbc,
+                             @Value("${products.facets.price-edges:10,25,50,100,250,500,1000}") double[] priceEdges) {
+        this.jdbc = jdbc;
+        this.priceEdges = priceEdges.clone();
+        Arrays.sort(this.priceEdges);
+        // Solo números de configuración: se pueden incrustar en el SQL sin riesgo
+        this.edgesLiteral = Arrays.stream(this.priceEdges)
+                .mapToObj(Double::toString)
+                .collect(Collectors.joining(",", "'{", "}'::float8[]"));
+    }
+
+    /** Ids de la página pedida: por relevancia si hay texto, si no los más nuevos primero. */
+    List<Long> findIds(ProductFilter f, String tsQuery, int offset, int limit) {
+        MapSqlParameterSource params = new MapSqlParameterSource();
+        String where = where(f, tsQuery, params);
+        String order = tsQuery != null
+                ? "ts_rank_cd(p.search_vector, to_tsquery('spanish', :tsq) || to_tsquery('english', :tsq)) DESC, p.id DESC"
+                : "p.id DESC";
+        params.addValue("limit", limit).addValue("offset", offset);
+        return jdbc.queryForList(
+                "SELECT p.id FROM public.products p" + where + " ORDER BY " + order + " LIMIT :limit OFFSET :offset",
+                params, Long.class);
+    }
+
+    /** Total y recuentos por faceta en una sola consulta. */
+    Counts counts(ProductFilter f, String tsQuery) {
+        MapSqlParameterSource params = new MapSqlParameterSource();
+        String sql =
+                "SELECT GROUPING(f.category_id, f.seller_id, f.bucket) AS g, " +
+                "       f.category_id, f.seller_id, f.bucket, count(*) AS n " +
+                "FROM (SELECT p.category_id, p.seller_id, width_bucket(p.price, " + edgesLiteral + ") AS bucket " +
+                "      FROM public.products p" + where(f, tsQuery, params) + ") f " +
+                "GROUP BY GROUPING SETS ((f.category_id), (f.seller_id), (f.bucket), ())";
+
+        long[] total = {0};
+        Map<Long, Long> byCategory = new HashMap<>();
+        Map<Long, Long> bySeller = new HashMap<>();
+        SortedMap<Integer, Long> byBucket = new TreeMap<>();
+        jdbc.query(sql, params, rs -> {
+            long n = rs.getLong("n");
+            switch (rs.getInt("g")) {
+                case BY_CATEGORY -> byCategory.put(rs.getLong("category_id"), n);
+                case BY_SELLER -> bySeller.put(rs.getLong("seller_id"), n);
+                case BY_PRICE -> byBucket.put(rs.getInt("bucket"), n);
+                case TOTAL -> total[0] = n;
+                default -> { }
+            }
+        });
+
+        List<PriceBucket> prices = new ArrayList<>(byBucket.size());
+        byBucket.forEach((b, n) -> prices.add(new PriceBucket(
+                b == 0 ? null : priceEdges[b - 1],
+                b == priceEdges.length ? null : priceEdges[b],
+                n)));
+        return new Counts(total[0], byCategory, bySeller, prices);
+    }
+
+    private static String where(ProductFilter f, String tsQuery, MapSqlParameterSource params) {
+        List<String> conds = new ArrayList<>();
+        if (tsQuery != null) {
+            conds.add("p.search_vector @@ (to_tsquery('spanish', :tsq) || to_tsquery('english', :tsq))");
+            params.addValue("tsq", tsQuery);
+        }
+        if (f.categoryId() != null) {
+            conds.add("p.category_id = :categoryId");
+            params.addValue("categoryId", f.categoryId());
+        }
+        if (f.sellerId() != null) {
+            conds.add("p.seller_id = :sellerId");
+            params.addValue("sellerId", f.sellerId());
+        }
+        if (f.minPrice() != null) {
+            conds.add("p.price >= :minPrice");
+            params.addValue("minPrice", f.minPrice());
+        }
+        if (f.maxPrice() != null) {
+            conds.add("p.price <= :maxPrice");
+            params.addValue("maxPrice", f.maxPrice());
+        }
+        if (Boolean.TRUE.equals(f.inStock())) {
+            conds.add("p.stock > 0");
+        }
+        return conds.isEmpty() ? "" : " WHERE " + String.join(" AND ", conds);
+    }
+}
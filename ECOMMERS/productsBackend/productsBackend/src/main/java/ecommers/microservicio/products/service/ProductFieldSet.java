@@ -0,0 +1,46 @@
+// src/main/java/ecommers/microservicio/products/service/ProductFieldSet.java
+package ecommers.microservicio.products.service;
+
+import java.util.*;
+
+/**
+ * Campos pedidos con {@code fields=id,name,price,seller}.
+ *
+ * {@code attributes} son las columnas a seleccionar (incluye sellerId o
+ * categoryId si hacen falta para adjuntar seller/category aunque no se hayan
+ * pedido); {@code output} lo que se devuelve y en qué orden.
+ */
+record ProductFieldSet(List<String> attributes, List<String> output,
+                       boolean withSeller, boolean withCategory) {
+
+    /** Atributos de Product que se pueden pedir (más "seller" y "category") */
+    private static final Set<String> ATTRIBUTES = Set.of(
+            "id", "name", "description", "price", "stock", "categoryId", "sellerId",
+            "imageUrl", "thumbnailUrl", "cardUrl", "detailUrl",
+            "createdAt", "updatedAt", "version");
+
+    static ProductFieldSet parse(String fields) {
+        LinkedHashSet<String> requested = new LinkedHashSet<>();
+        for (String f : fields.split(",")) {
+            String name = f.trim();
+            if (name.isEmpty()) continue;
+            if (!ATTRIBUTES.contains(name) && !name.equals("seller") && !name.equals("category")) {
+                throw new IllegalArgumentException("Campo desconocido: " + name);
+            }
+            requested.add(name);
+        }
+        if (requested.isEmpty()) {
+            throw new IllegalArgumentException("fields no puede estar vacío");
+        }
+
+        boolean withSeller = requested.contains("seller");
+        boolean withCategory = requested.contains("category");
+        LinkedHashSet<String> attributes = new LinkedHashSet<>();
+        for (String f : requested) {
+            if (ATTRIBUTES.contains(f)) attributes.add(f);
+        }
+        if (withSeller) attributes.add("sellerId");
+        if (withCategory) attributes.add("categoryId");
+        return new ProductFieldSet(List.copyOf(attributes), List.copyOf(requested), withSeller, withCategory);
+    }
+}
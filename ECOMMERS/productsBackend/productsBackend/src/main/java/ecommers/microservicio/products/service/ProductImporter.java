@@ -0,0 +1,400 @@
+// src/main/java/ecommers/microservicio/products/service/ProductImporter.java
+package ecommers.microservicio.products.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import ecommers.microservicio.products.dto.ImportReport;
+import ecommers.microservicio.products.dto.ImportReport.RowError;
+import ecommers.microservicio.products.dto.ProductSnapshot;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.LineNumberReader;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.*;
+
+/**
+ * Importación masiva de productos desde NDJSON o CSV.
+ *
+ * El fichero se lee línea a línea y se procesa en lotes de
+ * {@code products.import.batch-size} filas, así que la memoria no depende de
+ * su tamaño. Por cada lote:
+ * <ul>
+ *   <li>los vendedores que aún no se habían visto se validan con una sola
+ *       llamada bulk a Login; las categorías contra el catálogo local. Cada id
+ *       distinto se comprueba una vez por importación (los vendedores que
+ *       Login no llega a contestar no cuentan como comprobados);</li>
+ *   <li>los ids se reservan de golpe a la secuencia de products y las filas
+ *       se insertan con un único batchUpdate JDBC (IDENTITY impide el batching
+ *       de Hibernate), en su propia transacción. Si la BD rechaza el lote,
+ *       se deshace y sus filas se reintentan una a una para anotar solo las
+ *       que fallan.</li>
+ * </ul>
+ * Una fila inválida no detiene la importación: se anota en el informe.
+ */
+@Component
+public class ProductImporter {
+
+    /** Errores por fila que se devuelven como máximo en el informe */
+    private static final int MAX_REPORTED_ERRORS = 1000;
+
+    /** Intentos por lote para los vendedores que Login no llega a contestar */
+    private static final int SELLER_CHECK_ATTEMPTS = 2;
+
+    /** Longitud máxima de name y description (varchar(255) en products) */
+    static final int MAX_TEXT_LENGTH = 255;
+
+    private static final String INSERT_SQL =
+            "INSERT INTO public.products " +
+            "(id, name, description, price, stock, category_id, seller_id, created_at, updated_at, version) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, 1)";
+
+    private static final String NEXT_IDS_SQL =
+            "SELECT nextval(pg_get_serial_sequence('public.products', 'id')) FROM generate_series(1, ?)";
+
+    private final JdbcTemplate jdbc;
+    private final TransactionTemplate tx;
+    private final ObjectMapper json;
+    private final SellerDirectory sellers;
+    private final CategoryCatalog categories;
+    private final ProductCache cache;
+    private final ProductEventLog events;
+    private final int batchSize;
+
+    public ProductImporter(JdbcTemplate jdbc,
+                           TransactionTemplate tx,
+                           ObjectMapper json,
+                           SellerDirectory sellers,
+                           CategoryCatalog categories,
+                           ProductCache cache,
+                           ProductEventLog events,
+                           @Value("${products.import.batch-size:1000}") int batchSize) {
+        this.jdbc = jdbc;
+        this.tx = tx;
+        this.json = json;
+        this.sellers = sellers;
+        this.categories = categories;
+        this.cache = cache;
+        this.events = events;
+        this.batchSize = Math.max(1, batchSize);
+    }
+
+    /** Una fila ya parseada; los errores de validación se detectan después */
+    private record Row(long line, String name, String description,
+                       Double price, Integer stock, Long categoryId, Long sellerId) {}
+
+    /**
+     * NDJSON: un objeto por línea con name, description, price, stock,
+     * categoryId y sellerId (este último opcional si se da {@code defaultSellerId}).
+     */
+    public ImportReport importNdjson(InputStream in, Long defaultSellerId) throws IOException {
+        Run run = new Run(defaultSellerId);
+        try (BufferedReader reader = reader(in)) {
+            String line;
+            long n = 0;
+            while ((line = reader.readLine()) != null) {
+                n++;
+                if (line.isBlank()) continue;
+                try {
+                    JsonNode node = json.readTree(line);
+                    if (!node.isObject()) {
+                        run.reject(n, "Se esperaba un objeto JSON");
+                        continue;
+                    }
+                    run.add(new Row(n,
+                            text(node.get("name")),
+                            text(node.get("description")),
+                            toDouble(text(node.get("price"))),
+                            toInteger(text(node.get("stock"))),
+                            toLong(text(node.get("categoryId"))),
+                            toLong(text(node.get("sellerId")))));
+                } catch (JsonProcessingException ex) {
+                    run.reject(n, "JSON no válido: " + ex.getOriginalMessage());
+                } catch (NumberFormatException ex) {
+                    run.reject(n, "Número no válido: " + ex.getMessage());
+                }
+            }
+        }
+        return run.finish();
+    }
+
+    /**
+     * CSV con cabecera (separador coma, campos entre comillas dobles si hace
+     * falta; un campo entrecomillado puede tener saltos de línea). Columnas
+     * reconocidas: name, description, price, stock, categoryId, sellerId; el
+     * orden es libre y las demás se ignoran. Los errores se anotan en la
+     * primera línea del registro.
+     */
+    public ImportReport importCsv(InputStream in, Long defaultSellerId) throws IOException {
+        Run run = new Run(defaultSellerId);
+        try (LineNumberReader reader = reader(in)) {
+            String header = reader.readLine();
+            if (header == null) {
+                return run.finish();
+            }
+            Map<String, Integer> cols = new HashMap<>();
+            List<String> names = readCsvRecord(header.startsWith("\uFEFF") ? header.substring(1) : header, reader);
+            for (int i = 0; i < names.size(); i++) {
+                cols.put(names.get(i).trim(), i);
+            }
+            if (!cols.containsKey("name")) {
+                throw new IllegalArgumentException("La cabecera CSV debe incluir al menos la columna name");
+            }
+
+            String line;
+            while ((line = reader.readLine()) != null) {
+                long n = reader.getLineNumber();
+                if (line.isBlank()) continue;
+                try {
+                    List<String> f = readCsvRecord(line, reader);
+                    run.add(new Row(n,
+                            column(f, cols, "name"),
+                            column(f, cols, "description"),
+                            toDouble(column(f, cols, "price")),
+                            toInteger(column(f, cols, "stock")),
+                            toLong(column(f, cols, "categoryId")),
+                            toLong(column(f, cols, "sellerId"))));
+                } catch (NumberFormatException ex) {
+                    run.reject(n, "Número no válido: " + ex.getMessage());
+                } catch (IllegalArgumentException ex) {
+                    run.reject(n, ex.getMessage());
+                }
+            }
+        }
+        return run.finish();
+    }
+
+    // ----------------- estado de una importación -----------------
+
+    private final class Run {
+        private final Long defaultSellerId;
+        private final List<Row> pending = new ArrayList<>(batchSize);
+        private final List<RowError> errors = new ArrayList<>();
+
+        /** null = válido; si no, el motivo. Se rellena una vez por id distinto. */
+        private final Map<Long, String> sellerChecks = new HashMap<>();
+        private final Map<Long, String> categoryChecks = new HashMap<>();
+
+        private long imported;
+        private long rejected;
+
+        Run(Long defaultSellerId) {
+            this.defaultSellerId = defaultSellerId;
+        }
+
+        void add(Row row) {
+            if (row.sellerId() == null && defaultSellerId != null) {
+                row = new Row(row.line(), row.name(), row.description(), row.price(),
+                        row.stock(), row.categoryId(), defaultSellerId);
+            }
+            String problem = checkFields(row);
+            if (problem != null) {
+                reject(row.line(), problem);
+                return;
+            }
+            pending.add(row);
+            if (pending.size() >= batchSize) {
+                flush();
+            }
+        }
+
+        void reject(long line, String message) {
+            rejected++;
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add(new RowError(line, message));
+            }
+        }
+
+        ImportReport finish() {
+            flush();
+            errors.sort(Comparator.comparingLong(RowError::line));
+            return new ImportReport(imported, rejected, List.copyOf(errors), rejected > errors.size());
+        }
+
+        private void flush() {
+            if (pending.isEmpty()) return;
+
+            Set<Long> unresolved = checkSellers(pending);
+            List<Row> valid = new ArrayList<>(pending.size());
+            for (Row r : pending) {
+                String problem = unresolved.contains(r.sellerId())
+                        ? "No se pudo comprobar el vendedor " + r.sellerId() + " (Login no respondió a tiempo)"
+                        : sellerChecks.get(r.sellerId());
+                if (problem == null) problem = checkCategory(r.categoryId());
+                if (problem != null) {
+                    reject(r.line(), problem);
+                } else {
+                    valid.add(r);
+                }
+            }
+            pending.clear();
+            if (valid.isEmpty()) return;
+            try {
+                insert(valid);
+                imported += valid.size();
+            } catch (DataAccessException ex) {
+                // El lote se ha deshecho entero: uno a uno para saber qué filas fallan
+                for (Row r : valid) {
+                    try {
+                        insert(List.of(r));
+                        imported++;
+                    } catch (DataAccessException one) {
+                        reject(r.line(), "No se pudo guardar: " + one.getMostSpecificCause().getMessage());
+                    }
+                }
+            }
+        }
+
+        /**
+         * Una llamada bulk a Login con los vendedores nuevos del lote. Solo se
+         * anota el resultado de los que Login ha contestado; los que quedan sin
+         * resolver (fallo o fuera de plazo) se reintentan hasta
+         * {@code SELLER_CHECK_ATTEMPTS} veces y, si siguen así, se devuelven para
+         * rechazar sus filas de este lote sin darlos por inexistentes: el
+         * siguiente lote los vuelve a preguntar.
+         */
+        private Set<Long> checkSellers(List<Row> rows) {
+            Set<Long> unknown = new HashSet<>();
+            for (Row r : rows) {
+                if (!sellerChecks.containsKey(r.sellerId())) unknown.add(r.sellerId());
+            }
+            for (int attempt = 0; attempt < SELLER_CHECK_ATTEMPTS && !unknown.isEmpty(); attempt++) {
+                SellerDirectory.SellerCheck check = sellers.checkSellers(unknown);
+                check.valid().keySet().forEach(id -> sellerChecks.put(id, null));
+                sellerChecks.putAll(check.rejected());
+                unknown = check.unresolved();
+            }
+            return unknown;
+        }
+
+        private String checkCategory(Long categoryId) {
+            return categoryChecks.computeIfAbsent(categoryId, id -> {
+                try {
+                    categories.getOrThrow(id);
+                    return null;
+                } catch (RuntimeException ex) {
+                    return ex.getMessage();
+                }
+            });
+        }
+    }
+
+    /** Validaciones locales (las mismas que las de la entidad) */
+    private static String checkFields(Row r) {
+        if (r.name() == null || r.name().isBlank()) return "name es requerido";
+        if (r.name().length() > MAX_TEXT_LENGTH) return "name no puede superar " + MAX_TEXT_LENGTH + " caracteres";
+        if (r.description() != null && r.description().length() > MAX_TEXT_LENGTH) {
+            return "description no puede superar " + MAX_TEXT_LENGTH + " caracteres";
+        }
+        if (r.price() == null || r.price() < 0) return "price es requerido y no puede ser negativo";
+        if (!Double.isFinite(r.price())) return "price no válido";
+        if (r.stock() == null || r.stock() < 0) return "stock es requerido y no puede ser negativo";
+        if (r.categoryId() == null) return "categoryId es requerido";
+        if (r.sellerId() == null) return "sellerId es requerido";
+        return null;
+    }
+
+    /** Reserva ids y hace un único batchUpdate, todo en una transacción. */
+    private void insert(List<Row> rows) {
+        tx.executeWithoutResult(status -> {
+            List<Long> ids = jdbc.queryForList(NEXT_IDS_SQL, Long.class, rows.size());
+            Instant now = Instant.now();
+            Timestamp ts = Timestamp.from(now);
+            List<Object[]> args = new ArrayList<>(rows.size());
+            List<ProductSnapshot> created = new ArrayList<>(rows.size());
+            for (int i = 0; i < rows.size(); i++) {
+                Row r = rows.get(i);
+                args.add(new Object[]{ids.get(i), r.name(), r.description(), r.price(), r.stock(),
+                        r.categoryId(), r.sellerId(), ts, ts});
+                created.add(new ProductSnapshot(ids.get(i), r.name(), r.description(), r.price(), r.stock(),
+                        r.categoryId(), r.sellerId(), null, null, null, null, 1, now));
+            }
+            jdbc.batchUpdate(INSERT_SQL, args);
+            events.createdAll(created);
+            cache.evictAfterCommit(ids); // ids nuevos: solo puede haber negativos
+        });
+    }
+
+    // ----------------- parsing -----------------
+
+    private static LineNumberReader reader(InputStream in) {
+        return new LineNumberReader(new InputStreamReader(in, StandardCharsets.UTF_8), 64 * 1024);
+    }
+
+    private static String text(JsonNode node) {
+        return node == null || node.isNull() ? null : node.asText();
+    }
+
+    private static String column(List<String> fields, Map<String, Integer> cols, String name) {
+        Integer i = cols.get(name);
+        if (i == null || i >= fields.size()) return null;
+        String v = fields.get(i);
+        return v.isEmpty() ? null : v;
+    }
+
+    private static Double toDouble(String s) {
+        return s == null || s.isBlank() ? null : Double.valueOf(s.trim());
+    }
+
+    private static Integer toInteger(String s) {
+        return s == null || s.isBlank() ? null : Integer.valueOf(s.trim());
+    }
+
+    private static Long toLong(String s) {
+        return s == null || s.isBlank() ? null : Long.valueOf(s.trim());
+    }
+
+    /**
+     * Un registro CSV que empieza en {@code line}: campos separados por coma,
+     * opcionalmente entre comillas dobles ("" dentro de un campo entrecomillado
+     * es una comilla). Si la línea acaba con unas comillas abiertas, el salto
+     * de línea es parte del campo y se sigue leyendo de {@code more}.
+     */
+    static List<String> readCsvRecord(String line, BufferedReader more) throws IOException {
+        List<String> out = new ArrayList<>();
+        StringBuilder cur = new StringBuilder();
+        boolean quoted = false;
+        while (true) {
+            for (int i = 0; i < line.length(); i++) {
+                char c = line.charAt(i);
+                if (quoted) {
+                    if (c == '"') {
+                        if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                            cur.append('"');
+                            i++;
+                        } else {
+                            quoted = false;
+                        }
+                    } else {
+                        cur.append(c);
+                    }
+                } else if (c == '"' && cur.isEmpty()) {
+                    quoted = true;
+                } else if (c == ',') {
+                    out.add(cur.toString());
+                    cur.setLength(0);
+                } else {
+                    cur.append(c);
+                }
+            }
+            if (!quoted) break;
+            line = more.readLine();
+            if (line == null) {
+                throw new IllegalArgumentException("Comillas sin cerrar");
+            }
+            cur.append('\n');
+        }
+        out.add(cur.toString());
+        return out;
+    }
+}
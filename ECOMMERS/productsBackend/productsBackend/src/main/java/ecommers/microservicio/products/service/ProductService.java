@@ -1,263 +1,616 @@
 // src/main/java/ecommers/microservicio/products/service/ProductService.java
 package ecommers.microservicio.products.service;
 
+import ecommers.microservicio.products.dto.CursorPage;
+import ecommers.microservicio.products.dto.FilteredPage;
+import ecommers.microservicio.products.dto.ProductFacets;
+import ecommers.microservicio.products.dto.ProductFilter;
+import ecommers.microservicio.products.dto.ProductRef;
+import ecommers.microservicio.products.dto.ProductSnapshot;
+import ecommers.microservicio.products.dto.ProductSummary;
+import ecommers.microservicio.products.dto.SlicePage;
+import ecommers.microservicio.products.dto.StockAdjustment;
+import ecommers.microservicio.products.dto.StockLevel;
 import ecommers.microservicio.products.model.Product;
 import ecommers.microservicio.products.repository.ProductRepository;
+import ecommers.microservicio.products.repository.ProductRepository.RankedId;
+import ecommers.microservicio.products.repository.ProductRepository.PageStamp;
+import ecommers.microservicio.products.storage.ImageStore;
 import jakarta.persistence.EntityNotFoundException;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.*;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-import org.springframework.web.client.RestClientException;
-import org.springframework.web.client.RestTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.DigestUtils;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
-import java.nio.file.*;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
-import java.util.UUID;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
 
 @Service
 public class ProductService {
 
+    /** Tamaño máximo de página en los listados por cursor */
+    private static final int MAX_SCROLL_SIZE = 100;
+
+    /** Tamaño máximo de página y vendedores listados en las facetas de /filter */
+    private static final int MAX_FILTER_SIZE = 100;
+    private static final int MAX_SELLER_FACETS = 20;
+
+    /** IDs máximos en una consulta por lotes (/batch) */
+    public static final int MAX_BATCH_IDS = 500;
+
+    /** Líneas máximas en un ajuste de stock múltiple */
+    private static final int MAX_STOCK_ADJUSTMENTS = 500;
+
     private final ProductRepository repo;
-    private final Path uploadDir = Paths.get("uploads");
+    private final TransactionTemplate tx;
+
+    // Filas por id (detalle y su ETag), invalidadas al escribir
+    private final ProductCache cache;
+
+    // Outbox de cambios para carritos y pedidos (misma transacción que el cambio)
+    private final ProductEventLog events;
+
+    // Imágenes por contenido (disco + contadores de referencias) y sus variantes
+    private final ImageStore images;
+    private final ImageVariantPipeline variants;
+
+    // Vendedores (Login, con caché) y snapshot local de categorías
+    private final SellerDirectory sellers;
+    private final CategoryCatalog categories;
+    private final ProductEnricher enricher;
+
+    // Totales aproximados para los listados sin COUNT
+    private final ApproximateCounts counts;
 
-    // HTTP client y bases remotas
-    private final RestTemplate http;
-    private final String usersBaseUrl;
-    private final String categoriesBaseUrl; // <-- nuevo
+    // SQL del filtro combinado y sus facetas
+    private final ProductFacetQuery facetQuery;
 
     public ProductService(ProductRepository repo,
-                          RestTemplate http,
-                          @Value("${users.base-url:http://localhost:8080/api}") String usersBaseUrl,
-                          @Value("${categories.base-url:http://localhost:8081/api}") String categoriesBaseUrl // <-- nuevo
-    ) throws IOException {
+                          TransactionTemplate tx,
+                          ProductCache cache,
+                          ProductEventLog events,
+                          ImageStore images,
+                          ImageVariantPipeline variants,
+                          SellerDirectory sellers,
+                          CategoryCatalog categories,
+                          ProductEnricher enricher,
+                          ApproximateCounts counts,
+                          ProductFacetQuery facetQuery
+    ) {
         this.repo = repo;
-        this.http = http;
-        this.usersBaseUrl = usersBaseUrl;
-        this.categoriesBaseUrl = categoriesBaseUrl; // <-- nuevo
-        Files.createDirectories(uploadDir);
+        this.tx = tx;
+        this.cache = cache;
+        this.events = events;
+        this.images = images;
+        this.variants = variants;
+        this.sellers = sellers;
+        this.categories = categories;
+        this.enricher = enricher;
+        this.counts = counts;
+        this.facetQuery = facetQuery;
     }
 
     public Page<Product> getProducts(Pageable pageable) {
-        // 👇 Forzamos orden por ID DESC (últimos creados primero), ignorando cualquier sort entrante
-        Pageable ordered = PageRequest.of(
-                pageable.getPageNumber(),
-                pageable.getPageSize(),
-                Sort.by(Sort.Direction.DESC, "id")
-        );
-
-        Page<Product> page = repo.findAll(ordered);
-        page.getContent().forEach(p -> { attachSellerSafe(p); attachCategorySafe(p); });
+        Page<Product> page = repo.findAll(byIdDesc(pageable));
+        enricher.attachAll(page.getContent());
         return page;
     }
 
-    public Page<Product> getByCategory(Long categoryId, Pageable pageable) {
-        Page<Product> page = repo.findByCategoryId(categoryId, pageable);
-        page.getContent().forEach(p -> { attachSellerSafe(p); attachCategorySafe(p); });
+    public Page<Product> getBySeller(Long sellerId, Pageable pageable) {
+        Page<Product> page = repo.findBySellerId(sellerId, pageable);
+        enricher.attachAll(page.getContent());
         return page;
     }
 
     public Page<Product> search(String q, Pageable pageable) {
-        Page<Product> page = repo.search(q, pageable);
-        page.getContent().forEach(p -> { attachSellerSafe(p); attachCategorySafe(p); });
+        String tsQuery = SearchQueryBuilder.toTsQuery(q);
+        if (tsQuery == null) {
+            return Page.empty(pageable);
+        }
+        // El orden lo fija la relevancia; se ignora cualquier sort entrante
+        Pageable unsorted = PageRequest.of(pageable.getPageNumber(), pageable.getPageSize());
+        Page<Product> page = repo.search(tsQuery, unsorted);
+        enricher.attachAll(page.getContent());
         return page;
     }
 
+    // ----------------- listados Slice (sin COUNT) -----------------
+
+    public SlicePage<Product> sliceProducts(Pageable pageable, boolean withTotal) {
+        return toSlicePage(repo.findSlice(byIdDesc(pageable)), withTotal ? counts.total() : null);
+    }
+
+    public SlicePage<Product> sliceByCategory(Long categoryId, Pageable pageable, boolean withTotal) {
+        return toSlicePage(repo.findSliceByCategoryId(categoryId, pageable),
+                withTotal ? counts.byCategory(categoryId) : null);
+    }
+
+    /** En búsquedas no hay total aproximado: depende del texto y no se cachea. */
+    public SlicePage<Product> sliceSearch(String q, Pageable pageable) {
+        String tsQuery = SearchQueryBuilder.toTsQuery(q);
+        if (tsQuery == null) {
+            return new SlicePage<>(List.of(), pageable.getPageNumber(), pageable.getPageSize(), false, null);
+        }
+        Pageable unsorted = PageRequest.of(pageable.getPageNumber(), pageable.getPageSize());
+        return toSlicePage(repo.searchSlice(tsQuery, unsorted), null);
+    }
+
+    private SlicePage<Product> toSlicePage(Slice<Product> slice, Long approximateTotal) {
+        enricher.attachAll(slice.getContent());
+        return new SlicePage<>(slice.getContent(), slice.getNumber(), slice.getSize(),
+                slice.hasNext(), approximateTotal);
+    }
+
+    // ----------------- listados por cursor (keyset) -----------------
+    // Ordenados por id DESC (o relevancia en búsquedas); piden size + 1 filas
+    // para saber si hay más y nunca lanzan COUNT(*).
+
+    public CursorPage<Product> scrollProducts(String after, int size) {
+        ProductCursor cursor = ProductCursor.decode(after, false);
+        Limit limit = Limit.of(scrollSize(size) + 1);
+        List<Product> rows = (cursor == null)
+                ? repo.findAllByOrderByIdDesc(limit)
+                : repo.findByIdLessThanOrderByIdDesc(cursor.id(), limit);
+        return toCursorPage(rows, scrollSize(size), p -> new ProductCursor(p.getId(), null));
+    }
+
+    public CursorPage<Product> scrollByCategory(Long categoryId, String after, int size) {
+        ProductCursor cursor = ProductCursor.decode(after, false);
+        Limit limit = Limit.of(scrollSize(size) + 1);
+        List<Product> rows = (cursor == null)
+                ? repo.findByCategoryIdOrderByIdDesc(categoryId, limit)
+                : repo.findByCategoryIdAndIdLessThanOrderByIdDesc(categoryId, cursor.id(), limit);
+        return toCursorPage(rows, scrollSize(size), p -> new ProductCursor(p.getId(), null));
+    }
+
+    public CursorPage<Product> scrollSearch(String q, String after, int size) {
+        ProductCursor cursor = ProductCursor.decode(after, true);
+        String tsQuery = SearchQueryBuilder.toTsQuery(q);
+        if (tsQuery == null) {
+            return new CursorPage<>(List.of(), 0, false, null);
+        }
+        int n = scrollSize(size);
+        List<RankedId> hits = (cursor == null)
+                ? repo.searchFirstIds(tsQuery, n + 1)
+                : repo.searchIdsAfter(tsQuery, cursor.rank(), cursor.id(), n + 1);
+
+        // Segunda consulta por PK para las filas completas, respetando el orden por relevancia
+        Map<Long, Float> rankById = new LinkedHashMap<>();
+        hits.forEach(h -> rankById.put(h.getId(), h.getRank()));
+        List<Product> rows = findAllInOrder(rankById.keySet());
+
+        return toCursorPage(rows, n, p -> new ProductCursor(p.getId(), rankById.get(p.getId())));
+    }
+
+    /** findAllById respetando el orden de {@code ids} (los que ya no existen se omiten). */
+    private List<Product> findAllInOrder(Collection<Long> ids) {
+        Map<Long, Product> byId = new HashMap<>();
+        repo.findAllById(ids).forEach(p -> byId.put(p.getId(), p));
+        List<Product> rows = new ArrayList<>(ids.size());
+        ids.forEach(id -> { Product p = byId.get(id); if (p != null) rows.add(p); });
+        return rows;
+    }
+
+    // ----------------- filtro combinado con facetas -----------------
+
+    /**
+     * Página de productos que cumplen todos los criterios, con el total y las
+     * facetas (categoría, vendedor, tramo de precio) calculados en una única
+     * consulta agregada. Tres consultas en total: ids de la página, recuentos
+     * y filas completas por PK.
+     */
+    public FilteredPage<Product> filter(ProductFilter f, int page, int size) {
+        if (page < 0) {
+            throw new IllegalArgumentException("page no puede ser negativo");
+        }
+        if (f.minPrice() != null && f.maxPrice() != null && f.minPrice() > f.maxPrice()) {
+            throw new IllegalArgumentException("minPrice no puede ser mayor que maxPrice");
+        }
+        int n = Math.max(1, Math.min(size, MAX_FILTER_SIZE));
+        String tsQuery = null;
+        if (f.q() != null && !f.q().isBlank()) {
+            tsQuery = SearchQueryBuilder.toTsQuery(f.q());
+            if (tsQuery == null) {
+                return new FilteredPage<>(List.of(), page, n, 0, ProductFacets.empty());
+            }
+        }
+
+        List<Product> content = findAllInOrder(facetQuery.findIds(f, tsQuery, page * n, n));
+        enricher.attachAll(content);
+        ProductFacetQuery.Counts counts = facetQuery.counts(f, tsQuery);
+        return new FilteredPage<>(content, page, n, counts.total(), toFacets(counts));
+    }
+
+    private ProductFacets toFacets(ProductFacetQuery.Counts c) {
+        List<ProductFacets.Count> cats = new ArrayList<>(c.byCategory().size());
+        c.byCategory().forEach((id, n) -> {
+            Map<String, Object> cat = categories.find(id);
+            cats.add(new ProductFacets.Count(id, cat != null ? Objects.toString(cat.get("name"), null) : null, n));
+        });
+        cats.sort(Comparator.comparingLong(ProductFacets.Count::count).reversed());
+
+        // Solo los vendedores con más productos; sus nombres en una llamada bulk (o de caché)
+        List<Map.Entry<Long, Long>> top = c.bySeller().entrySet().stream()
+                .sorted(Map.Entry.<Long, Long>comparingByValue().reversed())
+                .limit(MAX_SELLER_FACETS)
+                .toList();
+        Map<Long, Map<String, Object>> found = sellers.findSellers(top.stream().map(Map.Entry::getKey).toList());
+        List<ProductFacets.Count> sellerCounts = new ArrayList<>(top.size());
+        for (Map.Entry<Long, Long> e : top) {
+            Map<String, Object> seller = found.get(e.getKey());
+            sellerCounts.add(new ProductFacets.Count(e.getKey(),
+                    seller != null ? Objects.toString(seller.get("username"), null) : null, e.getValue()));
+        }
+        return new ProductFacets(cats, sellerCounts, c.prices());
+    }
+
+    private static int scrollSize(int size) {
+        return Math.max(1, Math.min(size, MAX_SCROLL_SIZE));
+    }
+
+    private CursorPage<Product> toCursorPage(List<Product> rows, int size,
+                                             Function<Product, ProductCursor> cursorOf) {
+        boolean hasNext = rows.size() > size;
+        List<Product> content = hasNext ? new ArrayList<>(rows.subList(0, size)) : rows;
+        enricher.attachAll(content);
+        String next = hasNext ? cursorOf.apply(content.get(content.size() - 1)).encode() : null;
+        return new CursorPage<>(content, content.size(), hasNext, next);
+    }
+
+    /** Sale de {@link ProductCache}; el vendedor y la categoría se adjuntan en cada llamada. */
     public Optional<Product> getById(Long id) {
-        Optional<Product> opt = repo.findById(id);
-        opt.ifPresent(p -> { attachSellerSafe(p); attachCategorySafe(p); });
+        Optional<Product> opt = cache.find(id);
+        opt.ifPresent(enricher::attach);
         return opt;
     }
 
-    // ----------------- helpers: USER -----------------
-    private Map<String, Object> fetchUserOrThrow(Long sellerId) {
-        String url = usersBaseUrl + "/user/" + sellerId;
-        try {
-            @SuppressWarnings("unchecked")
-            Map<String, Object> body = http.getForObject(url, Map.class);
-            if (body == null || body.get("id") == null) {
-                throw new EntityNotFoundException("Usuario vendedor no encontrado: " + sellerId);
-            }
-            Object username = body.get("username");
-            if (username == null || "Desconocido".equalsIgnoreCase(username.toString())) {
-                throw new EntityNotFoundException("Usuario vendedor no encontrado: " + sellerId);
+    // ----------------- vistas reducidas (view=summary / fields=) -----------------
+    //
+    // Solo se seleccionan las columnas necesarias y solo se llama a Login (o
+    // se consulta el catálogo de categorías) si se pidió seller/category.
+
+    public Page<ProductSummary> getProductSummaries(Pageable pageable) {
+        return repo.findSummariesBy(byIdDesc(pageable));
+    }
+
+    public Page<ProductSummary> getSummariesByCategory(Long categoryId, Pageable pageable) {
+        return repo.findSummariesByCategoryId(categoryId, pageable);
+    }
+
+    public Optional<ProductSummary> getSummaryById(Long id) {
+        return repo.findSummaryById(id);
+    }
+
+    /**
+     * Productos ligeros de varios IDs en una sola consulta, en el orden pedido
+     * (los repetidos una vez; los que no existen se omiten). Con
+     * {@code withSeller} los vendedores se resuelven juntos, con una llamada
+     * bulk a Login como mucho.
+     */
+    public List<ProductRef> getRefs(Collection<Long> ids, boolean withSeller) {
+        if (ids == null || ids.isEmpty()) {
+            throw new IllegalArgumentException("ids es requerido");
+        }
+        Set<Long> unique = new LinkedHashSet<>(ids);
+        if (unique.contains(null)) {
+            throw new IllegalArgumentException("ids no puede contener valores nulos");
+        }
+        if (unique.size() > MAX_BATCH_IDS) {
+            throw new IllegalArgumentException("Como máximo " + MAX_BATCH_IDS + " ids por consulta");
+        }
+
+        Map<Long, ProductRef> byId = new HashMap<>();
+        for (ProductRef r : repo.findRefsByIdIn(unique)) {
+            byId.put(r.id(), r);
+        }
+        Map<Long, Map<String, Object>> found = Map.of();
+        if (withSeller) {
+            Set<Long> sellerIds = new HashSet<>();
+            byId.values().forEach(r -> { if (r.sellerId() != null) sellerIds.add(r.sellerId()); });
+            found = sellerIds.isEmpty() ? Map.of() : sellers.findSellers(sellerIds);
+        }
+
+        List<ProductRef> result = new ArrayList<>(byId.size());
+        for (Long id : unique) {
+            ProductRef r = byId.get(id);
+            if (r == null) continue;
+            result.add(withSeller && r.sellerId() != null ? r.withSeller(found.get(r.sellerId())) : r);
+        }
+        return result;
+    }
+
+    /** Como {@link #getProducts} pero solo con {@code fields} (lanza IllegalArgumentException si hay alguno desconocido). */
+    public Page<Map<String, Object>> getProductsFields(String fields, Pageable pageable) {
+        ProductFieldSet set = ProductFieldSet.parse(fields);
+        Page<Map<String, Object>> page = repo.findFields(set.attributes(), null, byIdDesc(pageable));
+        attachToFields(page.getContent(), set);
+        return page;
+    }
+
+    public Page<Map<String, Object>> getByCategoryFields(Long categoryId, String fields, Pageable pageable) {
+        ProductFieldSet set = ProductFieldSet.parse(fields);
+        Page<Map<String, Object>> page = repo.findFields(set.attributes(), categoryId, pageable);
+        attachToFields(page.getContent(), set);
+        return page;
+    }
+
+    public Optional<Map<String, Object>> getByIdFields(Long id, String fields) {
+        ProductFieldSet set = ProductFieldSet.parse(fields);
+        Optional<Map<String, Object>> row = repo.findFieldsById(set.attributes(), id);
+        row.ifPresent(r -> attachToFields(List.of(r), set));
+        return row;
+    }
+
+    /** Añade seller/category si se pidieron y quita las columnas que solo hacían falta para eso. */
+    private void attachToFields(List<Map<String, Object>> rows, ProductFieldSet set) {
+        if (rows.isEmpty()) return;
+
+        Map<Long, Map<String, Object>> found = Map.of();
+        if (set.withSeller()) {
+            Set<Long> sellerIds = new HashSet<>();
+            for (Map<String, Object> r : rows) {
+                if (r.get("sellerId") instanceof Long sid) sellerIds.add(sid);
             }
-            boolean okRole = false;
-            Object rolesObj = body.get("roles");
-            if (rolesObj instanceof Collection<?> col) {
-                for (Object r : col) {
-                    if (r != null) {
-                        String rs = r.toString();
-                        if ("ROLE_SELLER".equals(rs) || "ROLE_ADMIN".equals(rs)) {
-                            okRole = true; break;
-                        }
-                    }
-                }
+            found = sellers.findSellers(sellerIds);
+        }
+        for (Map<String, Object> r : rows) {
+            if (set.withSeller()) {
+                r.put("seller", found.get((Long) r.get("sellerId")));
             }
-            if (!okRole) {
-                throw new IllegalArgumentException("El usuario " + sellerId + " no tiene permisos de vendedor");
+            if (set.withCategory()) {
+                r.put("category", categories.find((Long) r.get("categoryId")));
             }
-            return body;
-        } catch (RestClientException ex) {
-            throw new IllegalStateException("No se pudo consultar el usuario remoto: " + ex.getMessage(), ex);
+            r.keySet().retainAll(set.output());
         }
     }
 
-    private void attachSellerSafe(Product p) {
-        try {
-            if (p.getSellerId() != null) {
-                p.setSeller(fetchUserOrThrow(p.getSellerId()));
-            }
-        } catch (Exception ignore) {
-            p.setSeller(null);
-        }
+    // ----------------- ETags (GET condicional) -----------------
+    //
+    // Los de listado salen de una consulta de id + versión (con el total), sin
+    // cargar filas completas ni llamar a Login: si el cliente ya tiene esa
+    // versión, la petición acaba en un 304 sin más trabajo. Son débiles (W/)
+    // porque el vendedor y la categoría adjuntos no forman parte de la versión.
+
+    /** ETag del detalle (versión de la fila cacheada); vacío si el producto no existe. */
+    public Optional<String> etagOf(Long id) {
+        return cache.find(id).map(p -> etag(p.getId(), p.getVersion()));
     }
 
-    // ----------------- helpers: CATEGORY -----------------
-    /** Intenta GET /categories/{id}; si falla, hace fallback a GET /categories y filtra. */
-    private Map<String, Object> fetchCategoryOrThrow(Long categoryId) {
-        // 1) intento directo por ID
-        String byId = categoriesBaseUrl + "/categories/" + categoryId;
-        try {
-            @SuppressWarnings("unchecked")
-            Map<String, Object> cat = http.getForObject(byId, Map.class);
-            if (cat != null && cat.get("id") != null) {
-                return cat;
-            }
-        } catch (RestClientException ignore) {
-            // seguimos al fallback
-        }
+    public static String etag(Long id, long version) {
+        return "W/\"p" + id + "-" + version + "\"";
+    }
 
-        // 2) fallback: listar y filtrar
-        String listUrl = categoriesBaseUrl + "/categories";
-        try {
-            @SuppressWarnings("unchecked")
-            List<Map<String, Object>> all = http.getForObject(listUrl, List.class);
-            if (all != null) {
-                for (Map<String, Object> c : all) {
-                    Object idObj = c.get("id");
-                    if (idObj != null && Long.valueOf(idObj.toString()).equals(categoryId)) {
-                        return c;
-                    }
-                }
-            }
-            throw new EntityNotFoundException("Categoría no encontrada: " + categoryId);
-        } catch (RestClientException ex) {
-            throw new IllegalStateException("No se pudo consultar categorías remotas: " + ex.getMessage(), ex);
+    /**
+     * Página del listado general ya identificada (ids, versiones y total) con
+     * su ETag. Si el cliente no la tiene, {@link #load} trae las filas.
+     */
+    public Listing listing(Pageable pageable) {
+        Pageable sorted = byIdDesc(pageable);
+        return Listing.of(repo.findPageStamps(sorted), sorted, repo::count);
+    }
+
+    /** Como {@link #listing} para el listado por categoría. */
+    public Listing categoryListing(Long categoryId, Pageable pageable) {
+        return Listing.of(repo.findPageStampsByCategoryId(categoryId, pageable), pageable,
+                () -> repo.countByCategoryId(categoryId));
+    }
+
+    /** Las filas de la página por clave primaria (sin volver a contar), enriquecidas. */
+    public Page<Product> load(Listing listing) {
+        Map<Long, Product> byId = new HashMap<>();
+        for (Product p : repo.findAllById(listing.ids())) {
+            byId.put(p.getId(), p);
         }
+        List<Product> content = new ArrayList<>(listing.ids().size());
+        for (Long id : listing.ids()) {
+            Product p = byId.get(id);
+            if (p != null) content.add(p); // borrado entre las dos consultas
+        }
+        enricher.attachAll(content);
+        return new PageImpl<>(content, listing.pageable(), listing.total());
     }
 
-    private void attachCategorySafe(Product p) {
-        try {
-            if (p.getCategoryId() != null) {
-                p.setCategory(fetchCategoryOrThrow(p.getCategoryId()));
+    public record Listing(String etag, List<Long> ids, long total, Pageable pageable) {
+
+        /**
+         * Una página vacía no trae el total en la consulta de versiones; solo
+         * entonces (página fuera de rango) se cuenta aparte.
+         */
+        static Listing of(List<PageStamp> stamps, Pageable pageable, LongSupplier count) {
+            long total = !stamps.isEmpty() ? stamps.get(0).getTotal()
+                    : pageable.isPaged() && pageable.getPageNumber() > 0 ? count.getAsLong() : 0;
+            StringBuilder sb = new StringBuilder()
+                    .append(total).append('|')
+                    .append(pageable.getPageNumber()).append('|')
+                    .append(pageable.getPageSize()).append('|')
+                    .append(pageable.getSort());
+            List<Long> ids = new ArrayList<>(stamps.size());
+            for (PageStamp v : stamps) {
+                sb.append('|').append(v.getId()).append(':').append(v.getVersion());
+                ids.add(v.getId());
             }
-        } catch (Exception ignore) {
-            p.setCategory(null);
+            String etag = "W/\"" + DigestUtils.md5DigestAsHex(sb.toString().getBytes(StandardCharsets.UTF_8)) + "\"";
+            return new Listing(etag, ids, total, pageable);
         }
     }
 
+    /** 👇 Forzamos orden por ID DESC (últimos creados primero), ignorando cualquier sort entrante */
+    private static Pageable byIdDesc(Pageable pageable) {
+        return PageRequest.of(
+                pageable.getPageNumber(),
+                pageable.getPageSize(),
+                Sort.by(Sort.Direction.DESC, "id")
+        );
+    }
+
     // ----------------- CRUD -----------------
 
-    @Transactional
+    /*
+     * Alta/edición/borrado: la imagen se escribe en disco (ImageStore.store)
+     * antes de abrir la transacción, y dentro de ella solo se actualizan el
+     * producto y los contadores de referencias. Las variantes redimensionadas
+     * se encolan después del commit. Las validaciones remotas
+     * (vendedor, categoría) tampoco retienen una conexión a la BD.
+     */
+
     public Product createProduct(String name, String description,
                                  Double price, Integer stock,
                                  Long categoryId,
                                  Long sellerId,
                                  MultipartFile image) throws IOException {
 
-        Map<String, Object> sellerObj = fetchUserOrThrow(sellerId);
-        Map<String, Object> categoryObj = fetchCategoryOrThrow(categoryId); // <-- valida categoría
-
-        Product p = new Product();
-        p.setName(name);
-        p.setDescription(description);
-        p.setPrice(price);
-        p.setStock(stock);
-        p.setCategoryId(categoryId);
-        p.setSellerId(sellerId);
-
-        if (image != null && !image.isEmpty()) {
-            String filename = UUID.randomUUID() + "-" + image.getOriginalFilename();
-            Path target = uploadDir.resolve(filename);
-            Files.copy(image.getInputStream(), target, StandardCopyOption.REPLACE_EXISTING);
-            p.setImageUrl(filename);
-        }
+        Map<String, Object> sellerObj = sellers.getSellerOrThrow(sellerId);
+        Map<String, Object> categoryObj = categories.getOrThrow(categoryId); // <-- valida categoría
 
-        Product saved = repo.save(p);
+        String imagePath = (image != null && !image.isEmpty()) ? images.store(image) : null;
+
+        Product saved = tx.execute(status -> {
+            Product p = new Product();
+            p.setName(name);
+            p.setDescription(description);
+            p.setPrice(price);
+            p.setStock(stock);
+            p.setCategoryId(categoryId);
+            p.setSellerId(sellerId);
+            if (imagePath != null) {
+                images.acquire(imagePath);
+                p.setImageUrl(imagePath);
+            }
+            Product created = repo.save(p);
+            events.created(ProductSnapshot.of(created));
+            cache.evictAfterCommit(created.getId()); // por si había un negativo de este id
+            return created;
+        });
+        if (imagePath != null) {
+            variants.submit(saved.getId(), imagePath); // ya confirmado: el worker verá la fila
+        }
         saved.setSeller(sellerObj);
         saved.setCategory(categoryObj); // <-- adjunta para la respuesta
         return saved;
     }
 
-    @Transactional
     public Product updateProduct(Long id,
                                  String name, String description,
                                  Double price, Integer stock,
                                  Long categoryId,
                                  Long sellerId,
                                  MultipartFile image) throws IOException {
-        Product existing = repo.findById(id)
-                .orElseThrow(() -> new EntityNotFoundException("Producto no encontrado: " + id));
+        if (!repo.existsById(id)) {
+            throw new EntityNotFoundException("Producto no encontrado: " + id);
+        }
+
+        Map<String, Object> sellerObj = sellers.getSellerOrThrow(sellerId);
+        Map<String, Object> categoryObj = categories.getOrThrow(categoryId);
 
-        Map<String, Object> sellerObj = fetchUserOrThrow(sellerId);
-        Map<String, Object> categoryObj = fetchCategoryOrThrow(categoryId);
+        String imagePath = (image != null && !image.isEmpty()) ? images.store(image) : null;
 
-        existing.setName(name);
-        existing.setDescription(description);
-        existing.setPrice(price);
-        existing.setStock(stock);
-        existing.setCategoryId(categoryId);
-        existing.setSellerId(sellerId);
+        Product saved = tx.execute(status -> {
+            Product existing = repo.findById(id)
+                    .orElseThrow(() -> new EntityNotFoundException("Producto no encontrado: " + id));
 
-        if (image != null && !image.isEmpty()) {
-            if (existing.getImageUrl() != null) {
-                Files.deleteIfExists(uploadDir.resolve(existing.getImageUrl()));
+            existing.setName(name);
+            existing.setDescription(description);
+            existing.setPrice(price);
+            existing.setStock(stock);
+            existing.setCategoryId(categoryId);
+            existing.setSellerId(sellerId);
+
+            if (imagePath != null && !imagePath.equals(existing.getImageUrl())) {
+                images.acquire(imagePath);
+                images.release(existing.getImageUrl());
+                existing.replaceImage(imagePath);
             }
-            String filename = UUID.randomUUID() + "-" + image.getOriginalFilename();
-            Path target = uploadDir.resolve(filename);
-            Files.copy(image.getInputStream(), target, StandardCopyOption.REPLACE_EXISTING);
-            existing.setImageUrl(filename);
+            // flush: la versión del evento es la que sube @PreUpdate
+            Product updated = repo.saveAndFlush(existing);
+            events.updated(ProductSnapshot.of(updated));
+            cache.evictAfterCommit(id);
+            return updated;
+        });
+        if (imagePath != null && saved.getThumbnailUrl() == null) {
+            variants.submit(saved.getId(), imagePath);
         }
-
-        Product saved = repo.save(existing);
         saved.setSeller(sellerObj);
         saved.setCategory(categoryObj);
         return saved;
     }
 
     @Transactional
-    public void deleteProduct(Long id) throws IOException {
+    public void deleteProduct(Long id) {
         Product existing = repo.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException("Producto no encontrado: " + id));
-        if (existing.getImageUrl() != null) {
-            Files.deleteIfExists(uploadDir.resolve(existing.getImageUrl()));
-        }
+        images.release(existing.getImageUrl());
         repo.delete(existing);
+        events.deleted(id);
+        cache.evictAfterCommit(id);
     }
 
+    /**
+     * Ajuste de stock para el checkout: un único UPDATE condicional, sin
+     * leer la fila antes ni enriquecer la respuesta.
+     */
     @Transactional
-    public Product adjustStock(Long id, int delta) {
-        Product p = repo.findById(id)
-                .orElseThrow(() -> new EntityNotFoundException("Producto no encontrado: " + id));
+    public StockLevel adjustStockLevel(Long id, int delta) {
+        int stock = repo.addStock(id, delta).orElseThrow(() -> repo.existsById(id)
+                ? new IllegalArgumentException("Stock insuficiente para realizar la operación")
+                : new EntityNotFoundException("Producto no encontrado: " + id));
+        StockLevel level = new StockLevel(id, stock);
+        events.stockChanged(level);
+        cache.evictAfterCommit(id);
+        return level;
+    }
 
-        int newStock = p.getStock() + delta;
-        if (newStock < 0) {
-            throw new IllegalArgumentException("Stock insuficiente para realizar la operación");
+    /**
+     * Ajuste de stock de varios productos en una sola transacción: o se aplican
+     * todos o ninguno. Las líneas del mismo producto se suman y los UPDATE se
+     * lanzan en orden de id, así dos pedidos concurrentes bloquean las filas
+     * en el mismo orden y no pueden interbloquearse.
+     */
+    @Transactional
+    public List<StockLevel> adjustStockBatch(List<StockAdjustment> adjustments) {
+        if (adjustments.size() > MAX_STOCK_ADJUSTMENTS) {
+            throw new IllegalArgumentException("Como máximo " + MAX_STOCK_ADJUSTMENTS + " líneas por ajuste");
         }
-        p.setStock(newStock);
-        Product saved = repo.save(p);
-        attachSellerSafe(saved);
-        attachCategorySafe(saved);
+        SortedMap<Long, Integer> merged = new TreeMap<>();
+        for (StockAdjustment a : adjustments) {
+            if (a == null || a.productId() == null) {
+                throw new IllegalArgumentException("productId es requerido");
+            }
+            merged.merge(a.productId(), a.delta(), Integer::sum);
+        }
+
+        List<StockLevel> levels = new ArrayList<>(merged.size());
+        for (Map.Entry<Long, Integer> e : merged.entrySet()) {
+            try {
+                levels.add(adjustStockLevel(e.getKey(), e.getValue()));
+            } catch (IllegalArgumentException ex) {
+                throw new IllegalArgumentException("Producto " + e.getKey() + ": " + ex.getMessage(), ex);
+            } catch (EntityNotFoundException ex) {
+                // Mismo formato que el resto de líneas: qué producto ha fallado
+                EntityNotFoundException wrapped = new EntityNotFoundException("Producto " + e.getKey() + ": no encontrado");
+                wrapped.initCause(ex);
+                throw wrapped;
+            }
+        }
+        return levels;
+    }
+
+    @Transactional
+    public Product adjustStock(Long id, int delta) {
+        adjustStockLevel(id, delta);
+        Product saved = repo.findById(id)
+                .orElseThrow(() -> new EntityNotFoundException("Producto no encontrado: " + id));
+        enricher.attach(saved);
         return saved;
     }
 
     public Product save(Product p) {
         Product saved = repo.save(p);
-        attachSellerSafe(saved);
-        attachCategorySafe(saved);
+        enricher.attach(saved);
         return saved;
     }
 }
@@ -0,0 +1,65 @@
+// src/main/java/ecommers/microservicio/products/service/SearchQueryBuilder.java
+package ecommers.microservicio.products.service;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Convierte el texto libre de /search en una expresión tsquery de Postgres.
+ *
+ * Cada palabra se queda solo con letras y dígitos y se busca como prefijo
+ * ("zapat:*"), todas unidas con AND. Así nunca llega al SQL un operador
+ * de tsquery escrito por el usuario y "zapa" ya encuentra "zapatos".
+ */
+public final class SearchQueryBuilder {
+
+    /** Palabras máximas que se tienen en cuenta */
+    static final int MAX_TERMS = 8;
+
+    /** Longitud máxima de cada palabra */
+    static final int MAX_TERM_LENGTH = 64;
+
+    private SearchQueryBuilder() {}
+
+    /**
+     * Expresión para {@code to_tsquery(cfg, ...)} o null si el texto no
+     * contiene ninguna palabra buscable.
+     */
+    public static String toTsQuery(String text) {
+        List<String> terms = terms(text);
+        if (terms.isEmpty()) {
+            return null;
+        }
+        StringBuilder sb = new StringBuilder();
+        for (String t : terms) {
+            if (!sb.isEmpty()) sb.append(" & ");
+            sb.append(t).append(":*");
+        }
+        return sb.toString();
+    }
+
+    static List<String> terms(String text) {
+        List<String> terms = new ArrayList<>();
+        if (text == null || text.isBlank()) {
+            return terms;
+        }
+        String normalized = Normalizer.normalize(text, Normalizer.Form.NFC).toLowerCase(Locale.ROOT);
+        StringBuilder current = new StringBuilder();
+        for (int i = 0; i < normalized.length() && terms.size() < MAX_TERMS; ) {
+            int cp = normalized.codePointAt(i);
+            i += Character.charCount(cp);
+            if (Character.isLetterOrDigit(cp)) {
+                if (current.length() < MAX_TERM_LENGTH) current.appendCodePoint(cp);
+            } else if (!current.isEmpty()) {
+                terms.add(current.toString());
+                current.setLength(0);
+            }
+        }
+        if (!current.isEmpty() && terms.size() < MAX_TERMS) {
+            terms.add(current.toString());
+        }
+        return terms;
+    }
+}
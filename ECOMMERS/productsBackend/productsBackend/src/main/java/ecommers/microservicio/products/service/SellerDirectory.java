@@ -0,0 +1,227 @@
+// src/main/java/ecommers/microservicio/products/service/SellerDirectory.java
+package ecommers.microservicio.products.service;
+
+import ecommers.microservicio.products.cache.CacheStats;
+import ecommers.microservicio.products.cache.ExpiringCache;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityNotFoundException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Perfiles de vendedor (microservicio Login) con caché local.
+ *
+ * Guarda la respuesta cruda de /user/{id}; los usuarios inexistentes
+ * ("Desconocido") se cachean como negativos con un TTL más corto.
+ * La comprobación de rol (SELLER/ADMIN) se hace siempre sobre el valor cacheado.
+ *
+ * Los fallos de caché de una página se piden en bloques concurrentes (un hilo
+ * virtual por bloque) con un plazo total por petición: la latencia queda
+ * acotada por la llamada más lenta, no por la suma de todas.
+ */
+@Component
+public class SellerDirectory {
+
+    /** Máximo de IDs aceptado por /user/batch en una sola llamada */
+    private static final int MAX_BULK_IDS = 500;
+
+    private final RestTemplate http;
+    private final String usersBaseUrl;
+    private final ExpiringCache<Long, Map<String, Object>> cache;
+
+    private final int chunkSize;
+    private final long deadlineNanos;
+    private final ExecutorService fanOut = Executors.newVirtualThreadPerTaskExecutor();
+
+    public SellerDirectory(RestTemplate http,
+                           @Value("${users.base-url:http://localhost:8080/api}") String usersBaseUrl,
+                           @Value("${users.cache.max-size:2000}") int maxSize,
+                           @Value("${users.cache.ttl-ms:300000}") long ttlMs,
+                           @Value("${users.cache.negative-ttl-ms:60000}") long negativeTtlMs,
+                           @Value("${users.fetch.chunk-size:100}") int chunkSize,
+                           @Value("${users.fetch.deadline-ms:1500}") long deadlineMs) {
+        this.http = http;
+        this.usersBaseUrl = usersBaseUrl;
+        this.cache = new ExpiringCache<>(maxSize, ttlMs, negativeTtlMs);
+        this.chunkSize = Math.max(1, Math.min(chunkSize, MAX_BULK_IDS));
+        this.deadlineNanos = TimeUnit.MILLISECONDS.toNanos(deadlineMs);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        fanOut.shutdownNow();
+    }
+
+    /** Vendedor validado para altas/ediciones; lanza si no existe o no tiene rol de vendedor. */
+    public Map<String, Object> getSellerOrThrow(Long sellerId) {
+        return checkSeller(sellerId, cache.get(sellerId, this::fetchUser));
+    }
+
+    /**
+     * Vendedores válidos de un conjunto de IDs. Los que no están en caché se piden
+     * juntos a /user/batch; los que fallan o no son vendedores no aparecen en el mapa.
+     */
+    public Map<Long, Map<String, Object>> findSellers(Collection<Long> sellerIds) {
+        Map<Long, Map<String, Object>> users = cache.getAll(sellerIds, this::fetchUsers);
+        Map<Long, Map<String, Object>> result = new HashMap<>();
+        for (Map.Entry<Long, Map<String, Object>> e : users.entrySet()) {
+            try {
+                result.put(e.getKey(), checkSeller(e.getKey(), e.getValue()));
+            } catch (RuntimeException ignore) {
+                // no es vendedor válido -> seller null
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Comprobación de vendedores para procesos masivos (importación): separa
+     * los válidos, los rechazados con su motivo (no existen o no son
+     * vendedores) y los que no se pudieron resolver (bloque de /user/batch
+     * fallido o fuera de plazo), que no se cachean y pueden reintentarse.
+     */
+    public SellerCheck checkSellers(Collection<Long> sellerIds) {
+        Map<Long, Map<String, Object>> users = cache.getAllKnown(sellerIds, this::fetchUsers);
+        Map<Long, Map<String, Object>> valid = new HashMap<>();
+        Map<Long, String> rejected = new HashMap<>();
+        Set<Long> unresolved = new HashSet<>();
+        for (Long id : sellerIds) {
+            if (!users.containsKey(id)) {
+                unresolved.add(id);
+                continue;
+            }
+            try {
+                valid.put(id, checkSeller(id, users.get(id)));
+            } catch (RuntimeException ex) {
+                rejected.put(id, ex.getMessage());
+            }
+        }
+        return new SellerCheck(valid, rejected, unresolved);
+    }
+
+    public record SellerCheck(Map<Long, Map<String, Object>> valid,
+                              Map<Long, String> rejected,
+                              Set<Long> unresolved) {}
+
+    /** Olvida un vendedor (p.ej. tras cambiarle roles o borrarlo). */
+    public void invalidate(Long sellerId) {
+        cache.invalidate(sellerId);
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    // ----------------- llamadas remotas -----------------
+
+    /** GET /user/{id}; null si el usuario no existe. */
+    private Map<String, Object> fetchUser(Long sellerId) {
+        String url = usersBaseUrl + "/user/" + sellerId;
+        try {
+            @SuppressWarnings("unchecked")
+            Map<String, Object> body = http.getForObject(url, Map.class);
+            return exists(body) ? body : null;
+        } catch (RestClientException ex) {
+            throw new IllegalStateException("No se pudo consultar el usuario remoto: " + ex.getMessage(), ex);
+        }
+    }
+
+    /**
+     * GET /user/batch?ids=... en bloques de {@code chunkSize}, todos a la vez en
+     * hilos virtuales. Se espera como mucho {@code deadline-ms} en total: los
+     * bloques que fallan o no llegan a tiempo se omiten (no se cachean y el
+     * producto sale sin seller, igual que con ProductEnricher.attach).
+     */
+    private Map<Long, Map<String, Object>> fetchUsers(Set<Long> sellerIds) {
+        List<Long> all = new ArrayList<>(sellerIds);
+        List<Future<Map<Long, Map<String, Object>>>> futures = new ArrayList<>();
+        for (int i = 0; i < all.size(); i += chunkSize) {
+            List<Long> chunk = List.copyOf(all.subList(i, Math.min(i + chunkSize, all.size())));
+            futures.add(fanOut.submit(() -> fetchChunk(chunk)));
+        }
+
+        Map<Long, Map<String, Object>> result = new HashMap<>();
+        long deadline = System.nanoTime() + deadlineNanos;
+        for (Future<Map<Long, Map<String, Object>>> f : futures) {
+            try {
+                result.putAll(f.get(Math.max(0L, deadline - System.nanoTime()), TimeUnit.NANOSECONDS));
+            } catch (TimeoutException | ExecutionException ex) {
+                f.cancel(true);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                futures.forEach(pending -> pending.cancel(true));
+                break;
+            }
+        }
+        return result;
+    }
+
+    /** Un bloque de /user/batch: los IDs que no vuelven se marcan como inexistentes. */
+    private Map<Long, Map<String, Object>> fetchChunk(List<Long> chunk) {
+        String url = UriComponentsBuilder.fromUriString(usersBaseUrl + "/user/batch")
+                .queryParam("ids", chunk)
+                .toUriString();
+        Map<Long, Map<String, Object>> result = new HashMap<>();
+        try {
+            @SuppressWarnings("unchecked")
+            List<Map<String, Object>> users = http.getForObject(url, List.class);
+            chunk.forEach(id -> result.put(id, null));
+            if (users != null) {
+                for (Map<String, Object> u : users) {
+                    if (exists(u)) {
+                        result.put(toLong(u.get("id")), u);
+                    }
+                }
+            }
+        } catch (RestClientException ignore) {
+            // degradamos a seller null para este bloque
+            return Map.of();
+        }
+        return result;
+    }
+
+    // ----------------- validación -----------------
+
+    private static boolean exists(Map<String, Object> body) {
+        if (body == null || body.get("id") == null) return false;
+        Object username = body.get("username");
+        return username != null && !"Desconocido".equalsIgnoreCase(username.toString());
+    }
+
+    /** Valida que la respuesta del microservicio Login sea un vendedor real (SELLER o ADMIN). */
+    private static Map<String, Object> checkSeller(Long sellerId, Map<String, Object> body) {
+        if (!exists(body)) {
+            throw new EntityNotFoundException("Usuario vendedor no encontrado: " + sellerId);
+        }
+        boolean okRole = false;
+        Object rolesObj = body.get("roles");
+        if (rolesObj instanceof Collection<?> col) {
+            for (Object r : col) {
+                if (r != null) {
+                    String rs = r.toString();
+                    if ("ROLE_SELLER".equals(rs) || "ROLE_ADMIN".equals(rs)) {
+                        okRole = true; break;
+                    }
+                }
+            }
+        }
+        if (!okRole) {
+            throw new IllegalArgumentException("El usuario " + sellerId + " no tiene permisos de vendedor");
+        }
+        return body;
+    }
+
+    private static Long toLong(Object o) {
+        return (o instanceof Number n) ? n.longValue() : Long.valueOf(o.toString());
+    }
+}
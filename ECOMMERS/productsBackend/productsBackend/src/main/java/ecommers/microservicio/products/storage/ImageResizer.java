@@ -0,0 +1,98 @@
+// src/main/java/ecommers/microservicio/products/storage/ImageResizer.java
+package ecommers.microservicio.products.storage;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Iterator;
+
+/**
+ * Decodificación y redimensionado con ImageIO/Java2D (sin dependencias nativas).
+ * Todo es CPU y memoria: solo debe llamarse desde el pool de ImageVariantPipeline.
+ */
+final class ImageResizer {
+
+    /** Por encima de esto no se decodifica (≈ 200 MB de ARGB en memoria) */
+    static final long MAX_PIXELS = 50_000_000L;
+
+    private static final float JPEG_QUALITY = 0.85f;
+
+    private ImageResizer() {}
+
+    /** Lee la imagen comprobando antes sus dimensiones; null si ImageIO no sabe leerla. */
+    static BufferedImage read(Path file) throws IOException {
+        try (ImageInputStream in = ImageIO.createImageInputStream(file.toFile())) {
+            if (in == null) return null;
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(in);
+            if (!readers.hasNext()) return null;
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(in, true, true);
+                long pixels = (long) reader.getWidth(0) * reader.getHeight(0);
+                if (pixels > MAX_PIXELS) {
+                    throw new IOException("Imagen demasiado grande: " + pixels + " px");
+                }
+                return reader.read(0);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    /**
+     * Reduce a {@code maxWidth} de ancho manteniendo la proporción (nunca amplía).
+     * Baja a mitades sucesivas antes del paso final: un solo salto bilineal de
+     * 4000 px a 200 px pierde casi todos los píxeles y queda con dientes.
+     * El resultado es RGB sobre fondo blanco (JPEG no tiene transparencia).
+     */
+    static BufferedImage resize(BufferedImage src, int maxWidth) {
+        int targetW = Math.min(maxWidth, src.getWidth());
+        int targetH = Math.max(1, (int) Math.round((double) src.getHeight() * targetW / src.getWidth()));
+
+        BufferedImage current = src;
+        int w = src.getWidth();
+        int h = src.getHeight();
+        while (w / 2 >= targetW) {
+            w /= 2;
+            h = Math.max(1, h / 2);
+            current = draw(current, w, h);
+        }
+        return draw(current, targetW, targetH);
+    }
+
+    static void writeJpeg(BufferedImage img, Path target) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        try (ImageOutputStream out = ImageIO.createImageOutputStream(target.toFile())) {
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(JPEG_QUALITY);
+            writer.setOutput(out);
+            writer.write(null, new IIOImage(img, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+    }
+
+    private static BufferedImage draw(BufferedImage src, int w, int h) {
+        BufferedImage dst = new BufferedImage(w, h, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = dst.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            g.setColor(Color.WHITE);
+            g.fillRect(0, 0, w, h);
+            g.drawImage(src, 0, 0, w, h, null);
+        } finally {
+            g.dispose();
+        }
+        return dst;
+    }
+}
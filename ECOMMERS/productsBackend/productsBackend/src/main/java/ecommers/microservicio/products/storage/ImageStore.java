@@ -0,0 +1,292 @@
+// src/main/java/ecommers/microservicio/products/storage/ImageStore.java
+package ecommers.microservicio.products.storage;
+
+import ecommers.microservicio.products.repository.ImageBlobRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.regex.Pattern;
+
+/**
+ * Almacén de imágenes por contenido.
+ *
+ * Cada subida se lee una sola vez: se vuelca a un temporal mientras se calcula
+ * su SHA-256 y después se mueve (rename, sin copiar) a
+ * {@code uploads/ab/cd/<sha256>.<ext>}. Dos subidas de la misma foto acaban en
+ * el mismo fichero; la tabla image_blobs lleva cuántos productos lo usan.
+ *
+ * El reparto de trabajo con ProductService es:
+ * <ul>
+ *   <li>{@link #store} hace la E/S de disco, antes y fuera de la transacción del producto;</li>
+ *   <li>{@link #acquire}/{@link #release} solo tocan contadores, dentro de esa transacción;</li>
+ *   <li>los ficheros sin referencias los borra {@link #sweepOrphans} pasado un periodo de gracia,
+ *       así una subida cuya transacción falle tampoco deja basura.</li>
+ * </ul>
+ * Las variantes redimensionadas ({@link ImageVariant}) van junto al original
+ * y se borran con él.
+ * Las imágenes antiguas (nombre plano "uuid-nombre.jpg" en uploads/) siguen
+ * sirviéndose igual; al dejar de usarse se borran tras el commit, como antes.
+ */
+@Component
+public class ImageStore {
+
+    private static final Logger log = LoggerFactory.getLogger(ImageStore.class);
+
+    private static final int MAX_EXTENSION_LENGTH = 5;
+
+    private static final Pattern CONTENT_ADDRESSED =
+            Pattern.compile("[0-9a-f]{2}/[0-9a-f]{2}/[0-9a-f]{64}(\\.[a-z0-9]{1,5})?");
+    private static final Pattern VARIANT =
+            Pattern.compile("[0-9a-f]{2}/[0-9a-f]{2}/[0-9a-f]{64}-[a-z]+\\.jpg");
+
+    private final ImageBlobRepository blobs;
+    private final TransactionTemplate tx;
+    private final Path root;
+    private final Path tmpDir;
+    private final Duration gcGrace;
+    private final int gcBatchSize;
+
+    public ImageStore(ImageBlobRepository blobs,
+                      TransactionTemplate tx,
+                      @Value("${products.images.dir:uploads}") String dir,
+                      @Value("${products.images.gc-grace-ms:3600000}") long gcGraceMs,
+                      @Value("${products.images.gc-batch-size:200}") int gcBatchSize) throws IOException {
+        this.blobs = blobs;
+        this.tx = tx;
+        this.root = Paths.get(dir).toAbsolutePath().normalize();
+        // Dentro de uploads/ para que el move final sea un rename en el mismo disco
+        this.tmpDir = root.resolve(".tmp");
+        this.gcGrace = Duration.ofMillis(gcGraceMs);
+        this.gcBatchSize = gcBatchSize;
+        Files.createDirectories(tmpDir);
+    }
+
+    /**
+     * Guarda la imagen y devuelve su ruta relativa (lo que va en imageUrl).
+     * No debe llamarse con una transacción abierta.
+     */
+    public String store(MultipartFile file) throws IOException {
+        Path tmp = tmpDir.resolve(UUID.randomUUID() + ".part");
+        try {
+            MessageDigest sha256 = newDigest();
+            long size;
+            try (InputStream in = new DigestInputStream(file.getInputStream(), sha256)) {
+                size = Files.copy(in, tmp);
+            }
+            String hash = HexFormat.of().formatHex(sha256.digest());
+            String path = hash.substring(0, 2) + "/" + hash.substring(2, 4) + "/"
+                    + hash + extensionOf(file.getOriginalFilename());
+
+            // Primero la fila: si el barrido tiene este fichero a medio borrar,
+            // esto espera a que termine y después se vuelve a escribir abajo.
+            blobs.touch(path, size);
+
+            Path target = resolve(path);
+            if (Files.exists(target)) {
+                return path; // ya estaba: deduplicado
+            }
+            Files.createDirectories(target.getParent());
+            try {
+                Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE);
+            } catch (FileAlreadyExistsException ex) {
+                // Otra subida idéntica ganó la carrera; el contenido es el mismo
+            }
+            return path;
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    /**
+     * Genera (si no existen ya) las variantes redimensionadas de una imagen por
+     * contenido y devuelve sus rutas. Decodifica y redimensiona: es trabajo de
+     * CPU que solo debe hacerse fuera del hilo de la petición.
+     * Mapa vacío si la imagen es antigua o no se puede decodificar.
+     */
+    public Map<ImageVariant, String> createVariants(String source) throws IOException {
+        if (!isContentAddressed(source)) {
+            return Map.of();
+        }
+        Map<ImageVariant, String> paths = new EnumMap<>(ImageVariant.class);
+        BufferedImage original = null;
+        for (ImageVariant v : ImageVariant.values()) {
+            String path = v.pathFor(source);
+            Path target = resolve(path);
+            if (!Files.exists(target)) {
+                if (original == null) {
+                    original = decode(source);
+                    if (original == null) {
+                        return Map.of();
+                    }
+                }
+                Path tmp = tmpDir.resolve(UUID.randomUUID() + ".part");
+                try {
+                    ImageResizer.writeJpeg(ImageResizer.resize(original, v.maxWidth()), tmp);
+                    Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                } finally {
+                    Files.deleteIfExists(tmp);
+                }
+            }
+            paths.put(v, path);
+        }
+        return paths;
+    }
+
+    /** null si el fichero no es una imagen legible (formato, corrupto, demasiado grande). */
+    private BufferedImage decode(String source) {
+        try {
+            return ImageResizer.read(resolve(source));
+        } catch (IOException | RuntimeException ex) {
+            log.warn("Imagen no legible {}: {}", source, ex.getMessage());
+            return null;
+        }
+    }
+
+    /** Un producto pasa a usar {@code path}. Llamar dentro de la transacción del producto. */
+    public void acquire(String path) {
+        if (isContentAddressed(path) && blobs.acquire(path) == 0) {
+            throw new IllegalStateException("Imagen no registrada: " + path);
+        }
+    }
+
+    /**
+     * Un producto deja de usar {@code path}. Llamar dentro de la transacción del
+     * producto: las imágenes por contenido solo bajan su contador (las recoge el
+     * barrido); las antiguas se borran del disco cuando la transacción confirma.
+     */
+    public void release(String path) {
+        if (path == null || path.isBlank()) {
+            return;
+        }
+        if (isContentAddressed(path)) {
+            blobs.release(path);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                deleteQuietly(path);
+            }
+        });
+    }
+
+    /**
+     * Borra los ficheros que llevan más de {@code products.images.gc-grace-ms}
+     * sin ningún producto. Cada borrado va en su propia transacción con la fila
+     * bloqueada, y el fichero se borra antes que la fila.
+     */
+    @Scheduled(fixedDelayString = "${products.images.gc-interval-ms:600000}",
+               initialDelayString = "${products.images.gc-interval-ms:600000}")
+    public void sweepOrphans() {
+        Instant before = Instant.now().minus(gcGrace);
+        List<String> candidates = blobs.findOrphans(before, Limit.of(gcBatchSize));
+        int removed = 0;
+        for (String path : candidates) {
+            Boolean deleted = tx.execute(status -> {
+                if (blobs.lockOrphan(path, before).isEmpty()) {
+                    return false; // alguien la ha vuelto a usar
+                }
+                try {
+                    for (ImageVariant v : ImageVariant.values()) {
+                        Files.deleteIfExists(resolve(v.pathFor(path)));
+                    }
+                    Files.deleteIfExists(resolve(path));
+                } catch (IOException ex) {
+                    throw new UncheckedIOException(ex);
+                }
+                blobs.deleteById(path);
+                return true;
+            });
+            if (Boolean.TRUE.equals(deleted)) removed++;
+        }
+        if (removed > 0) {
+            log.info("Imágenes huérfanas borradas: {}", removed);
+        }
+    }
+
+    /**
+     * ETag fuerte sin tocar el disco: el propio hash del nombre ("<sha256>" o
+     * "<sha256>-thumb"). Los nombres antiguos también son únicos por subida
+     * (UUID), así que basta con un resumen del nombre.
+     */
+    public static String etagOf(String path) {
+        String name = path.substring(path.lastIndexOf('/') + 1);
+        if (isHashNamed(path)) {
+            int dot = name.lastIndexOf('.');
+            return "\"" + (dot > 0 ? name.substring(0, dot) : name) + "\"";
+        }
+        byte[] digest = newDigest().digest(path.getBytes(StandardCharsets.UTF_8));
+        return "\"l-" + HexFormat.of().formatHex(digest, 0, 16) + "\"";
+    }
+
+    /** Ruta en disco de una imageUrl (nunca fuera de uploads/). */
+    public Path resolve(String path) {
+        Path p = root.resolve(path).normalize();
+        if (!p.startsWith(root)) {
+            throw new IllegalArgumentException("Ruta de imagen no válida: " + path);
+        }
+        return p;
+    }
+
+    /** Originales y variantes nuevos: el nombre es el hash del contenido (y su ETag). */
+    public static boolean isHashNamed(String path) {
+        return isContentAddressed(path) || isVariantPath(path);
+    }
+
+    static boolean isVariantPath(String path) {
+        return path != null && VARIANT.matcher(path).matches();
+    }
+
+    /** Las nuevas son "ab/cd/<sha256>.ext"; cualquier otra cosa es un nombre antiguo. */
+    static boolean isContentAddressed(String path) {
+        return path != null && CONTENT_ADDRESSED.matcher(path).matches();
+    }
+
+    /** ".jpg", ".png"… (solo [a-z0-9], corta) o "" si no hay una razonable. */
+    static String extensionOf(String filename) {
+        if (filename == null) return "";
+        int dot = filename.lastIndexOf('.');
+        if (dot < 0 || dot == filename.length() - 1) return "";
+        String ext = filename.substring(dot + 1).toLowerCase(Locale.ROOT);
+        if (ext.length() > MAX_EXTENSION_LENGTH || !ext.chars().allMatch(c -> (c >= 'a' && c <= 'z') || (c >= '0' && c <= '9'))) {
+            return "";
+        }
+        return "." + ext;
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    private void deleteQuietly(String path) {
+        try {
+            Files.deleteIfExists(resolve(path));
+        } catch (IOException | IllegalArgumentException ex) {
+            log.warn("No se pudo borrar la imagen {}: {}", path, ex.getMessage());
+        }
+    }
+}
@@ -0,0 +1,34 @@
+// src/main/java/ecommers/microservicio/products/storage/ImageVariant.java
+package ecommers.microservicio.products.storage;
+
+/**
+ * Tamaños que se generan de cada imagen (ancho máximo en px, sin ampliar).
+ * El fichero vive junto al original: {@code ab/cd/<sha256>-thumb.jpg}; como
+ * deriva del hash, dos productos con la misma foto comparten variantes.
+ */
+public enum ImageVariant {
+
+    THUMBNAIL("thumb", 200),
+    CARD("card", 480),
+    DETAIL("detail", 1200);
+
+    private final String suffix;
+    private final int maxWidth;
+
+    ImageVariant(String suffix, int maxWidth) {
+        this.suffix = suffix;
+        this.maxWidth = maxWidth;
+    }
+
+    public int maxWidth() {
+        return maxWidth;
+    }
+
+    /** Ruta de la variante de una imagen por contenido ("ab/cd/<sha256>.png" -> "ab/cd/<sha256>-thumb.jpg"). */
+    public String pathFor(String source) {
+        int dot = source.lastIndexOf('.');
+        int slash = source.lastIndexOf('/');
+        String base = dot > slash ? source.substring(0, dot) : source;
+        return base + "-" + suffix + ".jpg";
+    }
+}
@@ -0,0 +1,16 @@
+-- Objetos de BBDD que Hibernate (ddl-auto=update) no sabe crear.
+-- Se ejecuta en cada arranque despues de Hibernate: todo debe ser idempotente.
+
+-- Busqueda full-text sobre nombre (peso A) y descripcion (peso B),
+-- con stemming en espanol e ingles. Columna generada: Postgres la mantiene
+-- sola en cada INSERT/UPDATE, no hace falta tocarla desde Java.
+ALTER TABLE public.products ADD COLUMN IF NOT EXISTS search_vector tsvector
+    GENERATED ALWAYS AS (
+        setweight(to_tsvector('spanish', coalesce(name, '')), 'A') ||
+        setweight(to_tsvector('english', coalesce(name, '')), 'A') ||
+        setweight(to_tsvector('spanish', coalesce(description, '')), 'B') ||
+        setweight(to_tsvector('english', coalesce(description, '')), 'B')
+    ) STORED;
+
+CREATE INDEX IF NOT EXISTS idx_products_search_vector
+    ON public.products USING GIN (search_vector);
@@ -0,0 +1,79 @@
+package ecommers.microservicio.products.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExpiringCacheTest {
+
+	private final ExpiringCache<Long, String> cache = new ExpiringCache<>(100, 60_000, 60_000);
+	private final AtomicInteger loads = new AtomicInteger();
+
+	private String load(Long key) {
+		loads.incrementAndGet();
+		return "v" + key;
+	}
+
+	@Test
+	void seCargaUnaVezYLuegoSeLeeDeCache() {
+		assertEquals("v1", cache.get(1L, this::load));
+		assertEquals("v1", cache.get(1L, this::load));
+		assertEquals(1, loads.get());
+	}
+
+	@Test
+	void unaInvalidacionDuranteLaCargaNoSeGuarda() {
+		String value = cache.get(1L, k -> {
+			cache.invalidate(k);
+			return load(k);
+		});
+		assertEquals("v1", value, "quien cargó recibe su valor");
+		assertEquals(0, cache.size());
+
+		cache.get(1L, this::load);
+		assertEquals(2, loads.get(), "la siguiente lectura vuelve a cargar");
+	}
+
+	@Test
+	void unaInvalidacionDeOtraClaveTambienDescartaLaCarga() {
+		cache.get(1L, k -> {
+			cache.invalidateAll();
+			return load(k);
+		});
+		assertEquals(0, cache.size());
+	}
+
+	@Test
+	void unaInvalidacionDuranteUnaCargaMasivaNoSeGuarda() {
+		Map<Long, String> result = cache.getAll(List.of(1L, 2L), keys -> {
+			cache.invalidate(1L);
+			Map<Long, String> out = new HashMap<>();
+			keys.forEach(k -> out.put(k, load(k)));
+			return out;
+		});
+		assertEquals(Map.of(1L, "v1", 2L, "v2"), result);
+		assertEquals(0, cache.size());
+	}
+
+	@Test
+	void laCargaMasivaDistingueNoExisteDeNoSeSabe() {
+		Map<Long, String> known = cache.getAllKnown(List.of(1L, 2L, 3L), keys -> {
+			Map<Long, String> out = new HashMap<>();
+			out.put(1L, "v1");
+			out.put(2L, null); // no existe
+			return out;        // 3: sin respuesta
+		});
+		assertEquals("v1", known.get(1L));
+		assertTrue(known.containsKey(2L));
+		assertNull(known.get(2L));
+		assertFalse(known.containsKey(3L));
+
+		assertEquals(2, cache.size(), "el negativo se guarda; el desconocido no");
+		assertEquals(Map.of(1L, "v1"), cache.getAll(List.of(1L, 2L), keys -> fail("todo estaba en caché")));
+	}
+}
@@ -0,0 +1,51 @@
+package ecommers.microservicio.products.controllers;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ImageControllerRangeTest {
+
+	private static final long SIZE = 1000;
+
+	@Test
+	void tramoCerrado() {
+		assertArrayEquals(new long[]{0, 500}, ImageController.parseRange("bytes=0-499", SIZE));
+		assertArrayEquals(new long[]{999, 1000}, ImageController.parseRange(" bytes= 999-999 ", SIZE));
+	}
+
+	@Test
+	void finMasAllaDelTamanoSeRecorta() {
+		assertArrayEquals(new long[]{900, 1000}, ImageController.parseRange("bytes=900-5000", SIZE));
+	}
+
+	@Test
+	void tramoAbiertoHastaElFinal() {
+		assertArrayEquals(new long[]{100, 1000}, ImageController.parseRange("bytes=100-", SIZE));
+	}
+
+	@Test
+	void sufijo() {
+		assertArrayEquals(new long[]{800, 1000}, ImageController.parseRange("bytes=-200", SIZE));
+		// sufijo mayor que el fichero: el fichero entero
+		assertArrayEquals(new long[]{0, 1000}, ImageController.parseRange("bytes=-5000", SIZE));
+	}
+
+	@Test
+	void noSatisfacible() {
+		assertNull(ImageController.parseRange("bytes=1000-", SIZE));
+		assertNull(ImageController.parseRange("bytes=2000-3000", SIZE));
+		assertNull(ImageController.parseRange("bytes=-0", SIZE));
+		assertNull(ImageController.parseRange("bytes=-10", 0));
+	}
+
+	@Test
+	void seIgnoraLoQueNoSeEntiende() {
+		assertEquals(0, ImageController.parseRange("items=0-10", SIZE).length);
+		assertEquals(0, ImageController.parseRange("bytes=0-10,20-30", SIZE).length);
+		assertEquals(0, ImageController.parseRange("bytes=10-5", SIZE).length);
+		assertEquals(0, ImageController.parseRange("bytes=-", SIZE).length);
+		assertEquals(0, ImageController.parseRange("bytes=abc-", SIZE).length);
+		assertEquals(0, ImageController.parseRange("bytes=5", SIZE).length);
+	}
+}
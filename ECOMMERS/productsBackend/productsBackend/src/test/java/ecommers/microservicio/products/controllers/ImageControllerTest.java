@@ -0,0 +1,87 @@
+package ecommers.microservicio.products.controllers;
+
+import ecommers.microservicio.products.storage.ImageStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/** If-None-Match de /uploads con un directorio de imágenes temporal. */
+class ImageControllerTest {
+
+	private static final String HASHED = "ab/cd/" + "0123456789abcdef".repeat(4) + ".jpg";
+	private static final String LEGACY = "3f2c9a1e-foto.jpg";
+
+	@TempDir
+	Path dir;
+
+	private ImageController controller;
+
+	@BeforeEach
+	void setUp() throws IOException {
+		controller = new ImageController(new ImageStore(null, null, dir.toString(), 0, 1));
+	}
+
+	private MockHttpServletResponse get(String path, String ifNoneMatch) throws IOException {
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/uploads/" + path);
+		if (ifNoneMatch != null) request.addHeader(HttpHeaders.IF_NONE_MATCH, ifNoneMatch);
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		controller.serve("/" + path, request, response);
+		return response;
+	}
+
+	private void write(String path) throws IOException {
+		Path file = dir.resolve(path);
+		Files.createDirectories(file.getParent());
+		Files.write(file, new byte[]{1, 2, 3});
+	}
+
+	@Test
+	void asteriscoSinFicheroEs404() throws IOException {
+		MockHttpServletResponse r = get(HASHED, "*");
+		assertEquals(404, r.getStatus());
+		assertNull(r.getHeader(HttpHeaders.CACHE_CONTROL));
+
+		assertEquals(404, get(LEGACY, "*").getStatus());
+	}
+
+	@Test
+	void asteriscoConFicheroEs304() throws IOException {
+		write(LEGACY);
+		MockHttpServletResponse r = get(LEGACY, "*");
+		assertEquals(304, r.getStatus());
+		assertEquals(ImageStore.etagOf(LEGACY), r.getHeader(HttpHeaders.ETAG));
+	}
+
+	@Test
+	void etagDeNombreAntiguoSinFicheroEs404() throws IOException {
+		MockHttpServletResponse r = get(LEGACY, ImageStore.etagOf(LEGACY));
+		assertEquals(404, r.getStatus());
+		assertNull(r.getHeader(HttpHeaders.CACHE_CONTROL));
+	}
+
+	@Test
+	void hashExactoNoTocaElDisco() throws IOException {
+		// sin fichero: el atajo responde solo con el nombre
+		MockHttpServletResponse r = get(HASHED, "W/" + ImageStore.etagOf(HASHED));
+		assertEquals(304, r.getStatus());
+		assertEquals("public, max-age=31536000, immutable", r.getHeader(HttpHeaders.CACHE_CONTROL));
+	}
+
+	@Test
+	void sinCondicionSeSirveEntero() throws IOException {
+		write(HASHED);
+		MockHttpServletResponse r = get(HASHED, "\"otro\"");
+		assertEquals(200, r.getStatus());
+		assertArrayEquals(new byte[]{1, 2, 3}, r.getContentAsByteArray());
+		assertEquals(ImageStore.etagOf(HASHED), r.getHeader(HttpHeaders.ETAG));
+	}
+}
@@ -0,0 +1,44 @@
+package ecommers.microservicio.products.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProductCursorTest {
+
+	@Test
+	void idSinRelevancia() {
+		ProductCursor c = new ProductCursor(123456789L, null);
+		assertEquals(c, ProductCursor.decode(c.encode(), false));
+	}
+
+	@Test
+	void relevanciaConSusBitsExactos() {
+		float rank = Math.nextUp(0.1f);
+		ProductCursor decoded = ProductCursor.decode(new ProductCursor(42L, rank).encode(), true);
+		assertEquals(42L, decoded.id());
+		assertEquals(Float.floatToIntBits(rank), Float.floatToIntBits(decoded.rank()));
+	}
+
+	@Test
+	void tokenUrlSafeSinRelleno() {
+		String token = new ProductCursor(-1L, -1.5f).encode();
+		assertFalse(token.contains("=") || token.contains("+") || token.contains("/"), token);
+	}
+
+	@Test
+	void tokenVacioEsLaPrimeraPagina() {
+		assertNull(ProductCursor.decode(null, false));
+		assertNull(ProductCursor.decode(" ", true));
+	}
+
+	@Test
+	void rechazaTokensMalFormados() {
+		String withRank = new ProductCursor(7L, 1f).encode();
+		String withoutRank = new ProductCursor(7L, null).encode();
+		assertThrows(IllegalArgumentException.class, () -> ProductCursor.decode(withRank, false));
+		assertThrows(IllegalArgumentException.class, () -> ProductCursor.decode(withoutRank, true));
+		assertThrows(IllegalArgumentException.class, () -> ProductCursor.decode("no*es*base64", false));
+		assertThrows(IllegalArgumentException.class, () -> ProductCursor.decode("AAAA", false));
+	}
+}
@@ -0,0 +1,42 @@
+package ecommers.microservicio.products.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProductFieldSetTest {
+
+	@Test
+	void soloAtributos() {
+		ProductFieldSet fs = ProductFieldSet.parse("id, name ,price");
+		assertEquals(List.of("id", "name", "price"), fs.attributes());
+		assertEquals(List.of("id", "name", "price"), fs.output());
+		assertFalse(fs.withSeller());
+		assertFalse(fs.withCategory());
+	}
+
+	@Test
+	void sellerYCategoryAnadenSusIdsALaSelectPeroNoALaSalida() {
+		ProductFieldSet fs = ProductFieldSet.parse("name,seller,category");
+		assertEquals(List.of("name", "sellerId", "categoryId"), fs.attributes());
+		assertEquals(List.of("name", "seller", "category"), fs.output());
+		assertTrue(fs.withSeller());
+		assertTrue(fs.withCategory());
+	}
+
+	@Test
+	void repetidosYVaciosSeIgnoran() {
+		ProductFieldSet fs = ProductFieldSet.parse("id,,sellerId,seller,id,");
+		assertEquals(List.of("id", "sellerId"), fs.attributes());
+		assertEquals(List.of("id", "sellerId", "seller"), fs.output());
+	}
+
+	@Test
+	void rechazaCamposDesconocidosOVacios() {
+		assertThrows(IllegalArgumentException.class, () -> ProductFieldSet.parse("id,password"));
+		assertThrows(IllegalArgumentException.class, () -> ProductFieldSet.parse("Name"));
+		assertThrows(IllegalArgumentException.class, () -> ProductFieldSet.parse(" , "));
+	}
+}
@@ -0,0 +1,73 @@
+package ecommers.microservicio.products.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProductImporterCsvTest {
+
+	/** Primer registro de {@code csv} (puede ocupar varias líneas). */
+	private static List<String> parse(String csv) {
+		try (BufferedReader reader = new BufferedReader(new StringReader(csv))) {
+			String first = reader.readLine();
+			return ProductImporter.readCsvRecord(first == null ? "" : first, reader);
+		} catch (IOException ex) {
+			throw new UncheckedIOException(ex);
+		}
+	}
+
+	@Test
+	void camposSimples() {
+		assertEquals(List.of("a", "b", "c"), parse("a,b,c"));
+	}
+
+	@Test
+	void camposVacios() {
+		assertEquals(List.of("", "b", ""), parse(",b,"));
+		assertEquals(List.of(""), parse(""));
+	}
+
+	@Test
+	void comasDentroDeComillas() {
+		assertEquals(List.of("Mesa, roble", "10.5"), parse("\"Mesa, roble\",10.5"));
+	}
+
+	@Test
+	void comillasDoblesSonUnaComilla() {
+		assertEquals(List.of("TV 55\" 4K", "x"), parse("\"TV 55\"\" 4K\",x"));
+		assertEquals(List.of("\""), parse("\"\"\"\""));
+		assertEquals(List.of(""), parse("\"\""));
+	}
+
+	@Test
+	void comillaEnMitadDeUnCampoSinComillasEsLiteral() {
+		assertEquals(List.of("ab\"c"), parse("ab\"c"));
+	}
+
+	@Test
+	void saltosDeLineaDentroDeComillas() {
+		assertEquals(List.of("Mesa", "Roble macizo.\nMontaje incluido.", "10"),
+				parse("Mesa,\"Roble macizo.\nMontaje incluido.\",10\nSilla,x,5"));
+		assertEquals(List.of("a\n\n\"b\"", "c"), parse("\"a\n\n\"\"b\"\"\",c"));
+	}
+
+	@Test
+	void soloSeLeeLoNecesario() throws IOException {
+		BufferedReader reader = new BufferedReader(new StringReader("fin\"\nsiguiente"));
+		assertEquals(List.of("a\nfin"), ProductImporter.readCsvRecord("\"a", reader));
+		assertEquals("siguiente", reader.readLine());
+	}
+
+	@Test
+	void comillasSinCerrar() {
+		assertThrows(IllegalArgumentException.class, () -> parse("\"abc,def"));
+		assertThrows(IllegalArgumentException.class, () -> parse("\"abc\ndef,1\nghi,2"));
+		assertThrows(IllegalArgumentException.class, () -> parse("a,\"b\"\""));
+	}
+}
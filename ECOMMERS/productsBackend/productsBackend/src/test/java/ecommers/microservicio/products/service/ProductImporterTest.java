@@ -0,0 +1,157 @@
+package ecommers.microservicio.products.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import ecommers.microservicio.products.dto.ImportReport;
+import ecommers.microservicio.products.dto.ProductSnapshot;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Importación sin base de datos ni servicios remotos: todos los vendedores y
+ * categorías existen y el JdbcTemplate falso se comporta como la tabla
+ * products (varchar(255)), apuntando las filas guardadas.
+ */
+class ProductImporterTest {
+
+	/** Nombre que la BD falsa rechaza aunque pase las validaciones locales */
+	private static final String REJECTED_BY_DB = "rechazado por la bd";
+
+	private final List<String> insertedNames = new ArrayList<>();
+
+	private final JdbcTemplate jdbc = new JdbcTemplate() {
+		private final AtomicLong ids = new AtomicLong();
+
+		@Override
+		@SuppressWarnings("unchecked")
+		public <T> List<T> queryForList(String sql, Class<T> elementType, Object... args) {
+			int n = (Integer) args[0];
+			List<T> out = new ArrayList<>(n);
+			for (int i = 0; i < n; i++) out.add((T) Long.valueOf(ids.incrementAndGet()));
+			return out;
+		}
+
+		@Override
+		public int[] batchUpdate(String sql, List<Object[]> batchArgs) {
+			List<String> names = new ArrayList<>();
+			for (Object[] args : batchArgs) {
+				String name = (String) args[1];
+				if (name.length() > 255 || name.equals(REJECTED_BY_DB)) {
+					// como Postgres: falla la sentencia y no se guarda nada del lote
+					throw new DataIntegrityViolationException("ERROR: fila rechazada: " + name);
+				}
+				names.add(name);
+			}
+			insertedNames.addAll(names);
+			return new int[batchArgs.size()];
+		}
+	};
+
+	private final TransactionTemplate tx = new TransactionTemplate() {
+		@Override
+		public <T> T execute(TransactionCallback<T> action) {
+			return action.doInTransaction(null);
+		}
+	};
+
+	private final SellerDirectory sellers = new SellerDirectory(null, null, 10, 0, 0, 1, 0) {
+		@Override
+		public SellerCheck checkSellers(Collection<Long> sellerIds) {
+			Map<Long, Map<String, Object>> valid = new HashMap<>();
+			sellerIds.forEach(id -> valid.put(id, Map.of("id", id)));
+			return new SellerCheck(valid, Map.of(), Set.of());
+		}
+	};
+
+	private final CategoryCatalog categories = new CategoryCatalog(null, null, 0) {
+		@Override
+		public Map<String, Object> getOrThrow(Long categoryId) {
+			return Map.of("id", categoryId);
+		}
+	};
+
+	private final ProductCache cache = new ProductCache(null, 10, 0, 0) {
+		@Override
+		public void evictAfterCommit(Collection<Long> ids) {
+		}
+	};
+
+	private final ProductEventLog events = new ProductEventLog(null, null, null, 1, 0) {
+		@Override
+		public void createdAll(List<ProductSnapshot> products) {
+		}
+	};
+
+	private final ProductImporter importer =
+			new ProductImporter(jdbc, tx, new ObjectMapper(), sellers, categories, cache, events, 10);
+
+	private ImportReport importCsv(String csv) throws IOException {
+		return importer.importCsv(new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)), null);
+	}
+
+	@Test
+	void nombreDemasiadoLargoSeRechazaSinPararLaImportacion() throws IOException {
+		String longName = "x".repeat(ProductImporter.MAX_TEXT_LENGTH + 1);
+		ImportReport report = importCsv("""
+				name,price,stock,categoryId,sellerId
+				Mesa,10,1,1,1
+				%s,10,1,1,1
+				Silla,5,2,1,1
+				""".formatted(longName));
+
+		assertEquals(2, report.imported());
+		assertEquals(1, report.rejected());
+		assertEquals(3, report.errors().get(0).line());
+		assertTrue(report.errors().get(0).message().startsWith("name no puede superar"), report.errors().get(0).message());
+		assertEquals(List.of("Mesa", "Silla"), insertedNames);
+	}
+
+	@Test
+	void nombreJustoEnElLimiteSeAcepta() throws IOException {
+		String name = "x".repeat(ProductImporter.MAX_TEXT_LENGTH);
+		ImportReport report = importCsv("name,price,stock,categoryId,sellerId\n" + name + ",1,1,1,1\n");
+
+		assertEquals(1, report.imported());
+		assertEquals(0, report.rejected());
+	}
+
+	@Test
+	void siLaBdRechazaUnaFilaSoloEsaQuedaFuera() throws IOException {
+		ImportReport report = importCsv("""
+				name,price,stock,categoryId,sellerId
+				Mesa,10,1,1,1
+				%s,10,1,1,1
+				Silla,5,2,1,1
+				""".formatted(REJECTED_BY_DB));
+
+		assertEquals(2, report.imported());
+		assertEquals(1, report.rejected());
+		assertEquals(3, report.errors().get(0).line());
+		assertTrue(report.errors().get(0).message().startsWith("No se pudo guardar"), report.errors().get(0).message());
+		assertEquals(List.of("Mesa", "Silla"), insertedNames);
+	}
+
+	@Test
+	void registroDeVariasLineasCuentaDesdeSuPrimeraLinea() throws IOException {
+		ImportReport report = importCsv("""
+				name,description,price,stock,categoryId,sellerId
+				Mesa,"Roble macizo.
+				Montaje incluido.",10,1,1,1
+				Silla,,-5,2,1,1
+				""");
+
+		assertEquals(1, report.imported());
+		assertEquals(List.of("Mesa"), insertedNames);
+		assertEquals(4, report.errors().get(0).line());
+	}
+}
@@ -0,0 +1,44 @@
+package ecommers.microservicio.products.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SearchQueryBuilderTest {
+
+	@Test
+	void palabrasComoPrefijosUnidasConAnd() {
+		assertEquals("zapatos:* & rojos:*", SearchQueryBuilder.toTsQuery("  Zapatos   ROJOS "));
+	}
+
+	@Test
+	void quitaLosOperadoresDeTsquery() {
+		assertEquals("a:* & b:* & c:* & d:*", SearchQueryBuilder.toTsQuery("a & b | !c <-> d:*"));
+		assertEquals("foo:* & bar:*", SearchQueryBuilder.toTsQuery("'foo'\\(bar)"));
+	}
+
+	@Test
+	void sinPalabrasBuscablesDevuelveNull() {
+		assertNull(SearchQueryBuilder.toTsQuery(null));
+		assertNull(SearchQueryBuilder.toTsQuery("   "));
+		assertNull(SearchQueryBuilder.toTsQuery("&|!():*'"));
+	}
+
+	@Test
+	void conservaLetrasNoAsciiYNormalizaANfc() {
+		// "cafe" + acento combinante -> "café" compuesto
+		assertEquals(List.of("café", "año"), SearchQueryBuilder.terms("CAFE\u0301 Año"));
+	}
+
+	@Test
+	void limitaNumeroYLongitudDePalabras() {
+		List<String> terms = SearchQueryBuilder.terms("a b c d e f g h i j");
+		assertEquals(SearchQueryBuilder.MAX_TERMS, terms.size());
+		assertEquals("h", terms.get(terms.size() - 1));
+
+		String longWord = "x".repeat(SearchQueryBuilder.MAX_TERM_LENGTH + 10);
+		assertEquals(SearchQueryBuilder.MAX_TERM_LENGTH, SearchQueryBuilder.terms(longWord).get(0).length());
+	}
+}